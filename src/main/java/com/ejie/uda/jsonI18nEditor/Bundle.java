@@ -1,21 +1,90 @@
 package com.ejie.uda.jsonI18nEditor;
 
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.SortedMap;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
+/**
+ * This class represents a bundle of resources. A bundle consists of the resource files of the different
+ * locales which share the same name within a directory, like 'x21aApp.i18n_es.json' and 'x21aApp.i18n_eu.json'.
+ * 
+ * <p>A bundle is found by scanning the file system, so it knows the paths of its resource files.
+ * The resources themselves are added once they have been read.</p>
+ */
 public class Bundle {
-
-	private final String name ="";
+	private final String name;
+	private final Path dir;
+	private final SortedMap<String,Path> paths = Maps.newTreeMap();
 	private final List<Resource> resources = Lists.newLinkedList();
+	
+	/**
+	 * Creates a new bundle without any resource files.
+	 * 
+	 * @param 	name the name of the bundle.
+	 * @param 	dir the directory containing the resource files of the bundle.
+	 */
+	public Bundle(String name, Path dir) {
+		this.name = name;
+		this.dir = dir;
+	}
+	
+	/**
+	 * Gets the name of the bundle.
+	 * 
+	 * @return 	the name of the bundle.
+	 */
 	public String getName() {
 		return name;
 	}
-	public List<Resource> getResources() {
-		return resources;
+	
+	/**
+	 * Gets the directory containing the resource files of the bundle.
+	 * 
+	 * @return 	the directory.
+	 */
+	public Path getDir() {
+		return dir;
 	}
 	
+	/**
+	 * Gets the paths of the resource files of the bundle, by locale.
+	 * 
+	 * @return 	the paths of the resource files.
+	 */
+	public SortedMap<String,Path> getPaths() {
+		return Collections.unmodifiableSortedMap(paths);
+	}
 	
+	/**
+	 * Adds the resource file of the given locale to the bundle.
+	 * 
+	 * @param 	locale the locale of the resource file.
+	 * @param 	path the path of the resource file.
+	 */
+	public void addPath(String locale, Path path) {
+		paths.put(locale, path);
+	}
 	
+	/**
+	 * Checks whether the given path is a resource file of the bundle.
+	 * 
+	 * @param 	path the path to check.
+	 * @return 	whether the path is a resource file of the bundle.
+	 */
+	public boolean containsPath(Path path) {
+		return paths.containsValue(path);
+	}
 	
+	/**
+	 * Gets the resources of the bundle which have been read.
+	 * 
+	 * @return 	the resources.
+	 */
+	public List<Resource> getResources() {
+		return resources;
+	}
 }
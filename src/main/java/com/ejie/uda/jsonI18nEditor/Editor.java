@@ -19,10 +19,19 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -37,7 +46,10 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextField;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.TreeSelectionEvent;
@@ -49,14 +61,25 @@ import org.apache.commons.lang3.SystemUtils;
 import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
 import com.ejie.uda.jsonI18nEditor.swing.JFileDrop;
 import com.ejie.uda.jsonI18nEditor.swing.JScrollablePanel;
+import com.ejie.uda.jsonI18nEditor.util.BundleStore;
+import com.ejie.uda.jsonI18nEditor.util.DirectoryWatcher;
+import com.ejie.uda.jsonI18nEditor.util.EditJournal;
+import com.ejie.uda.jsonI18nEditor.util.EditJournal.Operation;
 import com.ejie.uda.jsonI18nEditor.util.ExtendedProperties;
 import com.ejie.uda.jsonI18nEditor.util.GithubRepoUtils;
 import com.ejie.uda.jsonI18nEditor.util.GithubRepoUtils.GithubReleaseData;
 import com.ejie.uda.jsonI18nEditor.util.MessageBundle;
+import com.ejie.uda.jsonI18nEditor.util.OutputFormat;
+import com.ejie.uda.jsonI18nEditor.util.ResourceCache;
 import com.ejie.uda.jsonI18nEditor.util.Resources;
+import com.ejie.uda.jsonI18nEditor.util.SavePipeline;
 import com.ejie.uda.jsonI18nEditor.util.TranslationKeys;
+import com.ejie.uda.jsonI18nEditor.util.WorkspaceScanner;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 
 /**
  * This class represents the main class of the editor.
@@ -67,6 +90,13 @@ public class Editor extends JFrame {
 	private final static long serialVersionUID = 1113029729495390082L;
 	
 	public final static Path SETTINGS_PATH = Paths.get(System.getProperty("user.home"), ".i18n-editor");
+	public final static Path CACHE_PATH = Paths.get(System.getProperty("user.home"), ".i18n-editor-cache");
+	public final static Path JOURNAL_PATH = Paths.get(System.getProperty("user.home"), ".i18n-editor-journal");
+	public final static int DEFAULT_CACHE_SIZE = 256;
+	public final static int WATCH_DELAY = 500;
+	public final static int DEFAULT_AUTOSAVE_DELAY = 30;
+	public final static long MAX_SAVE_BYTES_IN_FLIGHT = 64 * 1024 * 1024;
+	public final static int MAX_SCAN_DEPTH = 8;
 	public final static String TITLE = "UDA Json i18n Editor";
 	public final static String VERSION = "0.1.0";
 	public final static String COPYRIGHT_YEAR = "2016";
@@ -75,12 +105,24 @@ public class Editor extends JFrame {
 	public final static int DEFAULT_HEIGHT = 768;
 	
 	private List<Resource> resources = Lists.newLinkedList();
-//	private List<Bundle> bundles = Lists.newLinkedList();
+	private List<Bundle> bundles = Lists.newLinkedList();
+	private Map<Path,BundleStore> bundleStores = Maps.newHashMap();
 	private Path resourcesDir;
 	private Path inputFile;
-	private boolean dirty;
+	private int pendingResources;
+	private boolean changingResources;
 	private boolean minifyOutput;
+	private boolean lazyLoading;
+	private boolean compactValues;
+	private boolean watchResources;
 	private String bundle;
+	private ReadResourcesWorker<?> importWorker;
+	private SaveResourcesWorker saveWorker;
+	private boolean saveRequested;
+	private Map<Path,HashCode> resourceHashes = Maps.newHashMap();
+	private DirectoryWatcher resourcesWatcher;
+	private EditJournal journal;
+	private Timer autosaveTimer;
 	
 	private EditorMenu editorMenu;
 	private JSplitPane contentPane;
@@ -91,9 +133,11 @@ public class Editor extends JFrame {
 	private JPanel resourcesPanel;
 	private List<ResourceField> resourceFields = Lists.newLinkedList();
 	private ExtendedProperties settings = new ExtendedProperties();
+	private ResourceCache resourceCache = new ResourceCache(CACHE_PATH, 0);
+	private WorkspaceScanner workspaceScanner = new WorkspaceScanner(MAX_SCAN_DEPTH);
 	
 	
-	private final static String BUNDLE_REGEX = "(.*)(.i18n)(_[a-z]*).json";
+	private final static Pattern BUNDLE_PATTERN = Pattern.compile("(.*)(.i18n)(_[a-z]*).json");
 	
 	public Editor() {
 		super();
@@ -102,10 +146,11 @@ public class Editor extends JFrame {
 	}
 	
 	public void importResources(Path dir) {
-		
-		
-		
-		Stream<Path> filter;
+		importResources(dir, null);
+	}
+	
+	public void importResources(Path dir, Runnable onImported) {
+		List<Path> paths;
 		
 		try {
 			if (!closeCurrentSession()) {
@@ -114,103 +159,137 @@ public class Editor extends JFrame {
 			if (Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
 				reset();
 				resourcesDir = dir;
-				filter = Files.walk(resourcesDir, 1).filter(path -> Resources.isResource(path));
-				
+				inputFile = null;
+				this.bundle = null;
+				paths = listResources();
+				if (paths.isEmpty() && !bundles.isEmpty()) {
+					// The directory has no resource files of its own, like the root of a workspace, 
+					// so the first directory of the workspace which has resource files is opened
+					resourcesDir = bundles.get(0).getDir();
+					paths = listResources();
+				}
 			} else {
 				reset();
 				// Se ha arrastrado un fichero de 18n individual, se debe de obtener los recursos relacionados con el bundle al que pertenece.
-				Pattern.matches(BUNDLE_REGEX, dir.getFileName().toString());
-				Pattern regex = Pattern.compile(BUNDLE_REGEX);
 				resourcesDir = dir.getParent();
 				inputFile = dir;
-				Matcher regexMatcher = regex.matcher(dir.getFileName().toString());
+				Matcher regexMatcher = BUNDLE_PATTERN.matcher(dir.getFileName().toString());
 				if (regexMatcher.find()) {
 					this.bundle = regexMatcher.group(1);
-					filter = Files.walk(resourcesDir, 1).filter(path -> Resources.isResource(path, this.bundle));
+					paths = listResources();
 				}else{
 					showError(MessageBundle.get("resources.open.error.multiple"));
 					return;
 				}
-	//			Pattern.matches("BUNDLE_REGEX", dir.getFileName().toString());
-	//			showError(MessageBundle.get("resources.open.error.multiple"));
-	//			return;
 			}
-		
-			filter.forEach(path -> {
-				try {
-					Resource resource = Resources.read(path);
-					setupResource(resource);
-				} catch (Exception e) {
-					e.printStackTrace();
-					showError(MessageBundle.get("resources.open.error.single", path.toString()));
-				}
-			});
-			
-			List<String> recentDirs = settings.getListProperty("history");
-			recentDirs.remove(dir);
-			recentDirs.add(dir.toString());
-			if (recentDirs.size() > 5) {
-				recentDirs.remove(0);
-			}
-			settings.setProperty("history", recentDirs);
-			editorMenu.setRecentItems(Lists.reverse(recentDirs));
-			
-			Map<String,String> keys = Maps.newTreeMap();
-			resources.forEach(resource -> keys.putAll(resource.getTranslations()));
-//			resources.forEach(resource -> {
-//				
-//				
-//				
-//			});
-			List<String> keyList = Lists.newArrayList(keys.keySet());
-			translationTree.setModel(new TranslationTreeModel(keyList));
-			
-			
-			
-			updateUI();
-//			for (String key : keyList) {
-//				boolean anyEmpty = false;
-//				
-//				for (Resource resource : resources) {
-//					if (StringUtils.isBlank(resource.getTranslation(key))){
-//						anyEmpty = true;
-//					}
-//				}
-//				
-//				TranslationTreeModel model = (TranslationTreeModel) translationTree.getModel();
-//				TranslationTreeNode node = model.getNodeByKey(key);
-//				
-//				node
-//			}
-//			keyList.stream().filter(key -> {
-//				
-//				resources.stream().filter(resource -> {
-//					return StringUtils.isNotBlank(resource.getTranslation(key));
-//				});
-//				return true;
-//			});
 		} catch (IOException e) {
 			e.printStackTrace();
 			showError(MessageBundle.get("resources.open.error.multiple"));
+			return;
+		}
+		
+		List<String> recentDirs = settings.getListProperty("history");
+		recentDirs.remove(dir);
+		recentDirs.add(dir.toString());
+		if (recentDirs.size() > 5) {
+			recentDirs.remove(0);
 		}
+		settings.setProperty("history", recentDirs);
+		editorMenu.setRecentItems(Lists.reverse(recentDirs));
+		
+		importWorker = new ImportResourcesWorker(paths, onImported);
+		importWorker.execute();
 	}
 	
+	/**
+	 * Saves the resources which have been modified since they were last read or saved.
+	 * 
+	 * <p>A snapshot is taken of every modified resource, which is written to disk in the background, 
+	 * so the resources can be edited while they are being saved. Modifications made after the snapshot 
+	 * was taken remain pending to be saved. When a save is in progress already, the resources are saved 
+	 * again once it has finished.</p>
+	 */
 	public void saveResources() {
-		boolean error = false;
-		for (Resource resource : resources) {
-			try {
-				Resources.write(resource, !minifyOutput);
-			} catch (Exception e) {
-				error = true;
-				e.printStackTrace();
-				showError(MessageBundle.get("resources.write.error.single", resource.getPath().toString()));
-			}
+		if (saveWorker != null) {
+			saveRequested = true;
+			return;
+		}
+		List<Resource.Snapshot> snapshots = resources.stream()
+				.filter(Resource::isModified)
+				.map(Resource::createSnapshot)
+				.collect(Collectors.toList());
+		if (!snapshots.isEmpty()) {
+			saveWorker = new SaveResourcesWorker(snapshots, !minifyOutput, getJournalPosition());
+			saveWorker.execute();
 		}
-		setDirty(error);
 	}
 	
+	/**
+	 * Reloads the resources from disk. Only the files which have been changed since they were read are 
+	 * read again, the changed translation keys are applied to the current translation tree so the state 
+	 * of the tree is kept.
+	 */
 	public void reloadResources() {
-		importResources(this.inputFile);
+		if (resourcesDir == null) {
+			return;
+		}
+		if (translationTree.getModel().getRoot() == null) {
+			importResources(inputFile != null ? inputFile : resourcesDir);
+			return;
+		}
+		if (!closeCurrentSession()) {
+			return;
+		}
+		List<Path> paths;
+		try {
+			paths = listResources();
+		} catch (IOException e) {
+			e.printStackTrace();
+			showError(MessageBundle.get("resources.open.error.multiple"));
+			return;
+		}
+		// Unsaved changes are discarded, so all files have to be read again
+		boolean discardChanges = isDirty();
+		Map<Path,HashCode> knownHashes = discardChanges ? Maps.newHashMap() : Maps.newHashMap(resourceHashes);
+		cancelImport();
+		importWorker = new ReloadResourcesWorker(paths, knownHashes, discardChanges);
+		importWorker.execute();
+	}
+	
+	/**
+	 * Merges the changes made to the resource files by other applications into the current resources. 
+	 * Unsaved changes are kept, the user is asked what to do when a file changes translations the user
+	 * has changed as well.
+	 * 
+	 * @param 	changedPaths the paths which have been changed on disk.
+	 */
+	public void syncResources(Set<Path> changedPaths) {
+		if (resourcesDir == null || resourcesWatcher == null || !resourcesWatcher.getDir().equals(resourcesDir)) {
+			return;
+		}
+		if (importWorker != null || saveWorker != null) {
+			// Try again once the resources have been read or written
+			Timer retryTimer = new Timer(WATCH_DELAY, e -> syncResources(changedPaths));
+			retryTimer.setRepeats(false);
+			retryTimer.start();
+			return;
+		}
+		boolean resourcesChanged = changedPaths.stream().anyMatch(path -> path.equals(resourcesDir) 
+				|| resources.stream().anyMatch(r -> r.getPath().equals(path))
+				|| (bundle == null ? Resources.isResource(path) : Resources.isResource(path, bundle)));
+		if (!resourcesChanged) {
+			return;
+		}
+		List<Path> paths;
+		try {
+			paths = listResources();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		// Files written by the editor itself have a known hash and are not read again
+		importWorker = new ReloadResourcesWorker(paths, Maps.newHashMap(resourceHashes), false);
+		importWorker.execute();
 	}
 	
 	public void removeSelectedTranslation() {
@@ -242,41 +321,58 @@ public class Editor extends JFrame {
 		if (node != null) {
 			translationTree.setSelectedNode(node);
 		} else {
-			resources.forEach(resource -> resource.storeTranslation(key, ""));
+			changeResources(resource -> resource.storeTranslation(key, ""));
+			journal(Operation.STORE, null, key, "");
 			translationTree.addNodeByKey(key);			
 		}
 	}
 	
 	public void removeTranslationKey(String key) {
 		if (resources.isEmpty()) return;
-		resources.forEach(resource -> resource.removeTranslation(key));
+		changeResources(resource -> resource.removeTranslation(key));
+		journal(Operation.REMOVE, null, key, "");
 		translationTree.removeNodeByKey(key);
 	}
 	
 	public void renameTranslationKey(String key, String newKey) {
 		if (resources.isEmpty() || key.equals(newKey)) return;
-		resources.forEach(resource -> resource.renameTranslation(key, newKey));
+		changeResources(resource -> resource.renameTranslation(key, newKey));
+		journal(Operation.RENAME, null, key, newKey);
 		translationTree.renameNodeByKey(key, newKey);
 	}
 	
 	public void duplicateTranslationKey(String key, String newKey) {
 		if (resources.isEmpty() || key.equals(newKey)) return;
-		resources.forEach(resource -> resource.duplicateTranslation(key, newKey));
+		changeResources(resource -> resource.duplicateTranslation(key, newKey));
+		journal(Operation.DUPLICATE, null, key, newKey);
 		translationTree.duplicateNodeByKey(key, newKey);
 	}
 	
 	public boolean isDirty() {
-		return dirty;
+		return pendingResources > 0;
+	}
+	
+	/**
+	 * Gets the number of resources with modifications which have not been saved yet.
+	 * 
+	 * @return 	the number of resources pending to be saved.
+	 */
+	public int getPendingResources() {
+		return pendingResources;
 	}
 	
 	public Path getResourcesPath() {
 		return resourcesDir;
 	}
 	
-	public void setDirty(boolean dirty) {
-		this.dirty = dirty;
+	/**
+	 * Counts the resources with modifications which have not been saved yet, and updates the title 
+	 * and menu accordingly.
+	 */
+	public void updatePendingResources() {
+		pendingResources = (int) resources.stream().filter(Resource::isModified).count();
 		updateTitle();
-		editorMenu.setSaveable(dirty);
+		editorMenu.setSaveable(pendingResources);
 	}
 	
 	public boolean isMinifyOutput() {
@@ -287,6 +383,30 @@ public class Editor extends JFrame {
 		this.minifyOutput = minifyOutput;
 	}
 	
+	public boolean isWatchResources() {
+		return watchResources;
+	}
+	
+	public void setWatchResources(boolean watchResources) {
+		this.watchResources = watchResources;
+	}
+	
+	public boolean isLazyLoading() {
+		return lazyLoading;
+	}
+	
+	public void setLazyLoading(boolean lazyLoading) {
+		this.lazyLoading = lazyLoading;
+	}
+	
+	public boolean isCompactValues() {
+		return compactValues;
+	}
+	
+	public void setCompactValues(boolean compactValues) {
+		this.compactValues = compactValues;
+	}
+	
 	public void showError(String message) {
 		showMessageDialog(MessageBundle.get("dialogs.error.title"), message, JOptionPane.ERROR_MESSAGE);
 	}
@@ -522,6 +642,7 @@ public class Editor extends JFrame {
 	}
 	
 	public boolean closeCurrentSession() {
+		awaitSave();
 		if (isDirty()) {
 			int result = JOptionPane.showConfirmDialog(this, 
 					MessageBundle.get("dialogs.save.text"), 
@@ -529,6 +650,7 @@ public class Editor extends JFrame {
 					JOptionPane.YES_NO_CANCEL_OPTION);
 			if (result == JOptionPane.YES_OPTION) {
 				saveResources();
+				awaitSave();
 			}
 			return result != JOptionPane.CANCEL_OPTION;
 		}
@@ -536,10 +658,16 @@ public class Editor extends JFrame {
 	}
 	
 	public void reset() {
+		cancelImport();
+		stopWatching();
+		closeJournal(true);
 		translationTree.clear();
+		// The resources are dropped together with their stores, so their translations are not released first
 		resources.clear();
+		bundleStores.clear();
 		resourceFields.clear();
-		setDirty(false);
+		resourceHashes.clear();
+		updatePendingResources();
 		updateUI();
 	}
 	
@@ -575,6 +703,19 @@ public class Editor extends JFrame {
 		
 		// Restore editor settings
 		minifyOutput = settings.getBooleanProperty("minify_output");
+		lazyLoading = settings.getBooleanProperty("lazy_loading");
+		compactValues = settings.getBooleanProperty("compact_values");
+		watchResources = settings.getBooleanProperty("watch_resources", true);
+		
+		// Setup the snapshot cache of parsed resources, its maximum size is configured in megabytes
+		resourceCache = new ResourceCache(CACHE_PATH, settings.getIntegerProperty("cache_size", DEFAULT_CACHE_SIZE) * 1024L * 1024L);
+		
+		// Save the journaled edits once the user stops editing, the delay is configured in seconds
+		int autosaveDelay = settings.getIntegerProperty("autosave_delay", DEFAULT_AUTOSAVE_DELAY);
+		if (autosaveDelay > 0) {
+			autosaveTimer = new Timer(autosaveDelay * 1000, e -> saveResources());
+			autosaveTimer.setRepeats(false);
+		}
     	
 		// Restore window bounds
 		setPreferredSize(new Dimension(settings.getIntegerProperty("window_width", 1024), settings.getIntegerProperty("window_height", 768)));
@@ -586,21 +727,6 @@ public class Editor extends JFrame {
     	
     	if (!loadResourcesFromHistory()) {
     		showImportDialog();
-    	} else {
-    		// Restore last expanded nodes
-			List<String> expandedKeys = settings.getListProperty("last_expanded");
-			List<TranslationTreeNode> expandedNodes = expandedKeys.stream()
-					.map(k -> translationTree.getNodeByKey(k))
-					.filter(n -> n != null)
-					.collect(Collectors.toList());
-			translationTree.expand(expandedNodes);
-			
-			// Restore last selected node
-			String selectedKey = settings.getProperty("last_selected");
-			TranslationTreeNode selectedNode = translationTree.getNodeByKey(selectedKey);
-			if (selectedNode != null) {
-				translationTree.setSelectedNode(selectedNode);
-			}
     	}
 	}
 	
@@ -624,25 +750,261 @@ public class Editor extends JFrame {
     		String lastDir = dirs.get(dirs.size()-1);
     		Path path = Paths.get(lastDir);
     		if (Files.exists(path)) {
-    			importResources(path);
+    			importResources(path, this::restoreTreeState);
     			return true;
     		}
     	}
     	return false;
 	}
 	
+	private void restoreTreeState() {
+		// Restore last expanded nodes
+		List<String> expandedKeys = settings.getListProperty("last_expanded");
+		List<TranslationTreeNode> expandedNodes = expandedKeys.stream()
+				.map(k -> translationTree.getNodeByKey(k))
+				.filter(n -> n != null)
+				.collect(Collectors.toList());
+		translationTree.expand(expandedNodes);
+		
+		// Restore last selected node
+		String selectedKey = settings.getProperty("last_selected");
+		TranslationTreeNode selectedNode = translationTree.getNodeByKey(selectedKey);
+		if (selectedNode != null) {
+			translationTree.setSelectedNode(selectedNode);
+		}
+	}
+	
+	/**
+	 * Lists the resource files of the bundles in the resources directory, or of the current bundle only 
+	 * when a single resource file has been opened. The whole workspace below the resources directory is 
+	 * scanned for bundles, up to {@link #MAX_SCAN_DEPTH} levels deep, the scanner only lists the directories 
+	 * again which have been changed since the previous scan.
+	 */
+	private List<Path> listResources() throws IOException {
+		bundles = workspaceScanner.scan(resourcesDir);
+		resources.forEach(resource -> bundles.stream()
+				.filter(b -> b.containsPath(resource.getPath()))
+				.forEach(b -> b.getResources().add(resource)));
+		return bundles.stream()
+				.filter(b -> b.getDir().equals(resourcesDir))
+				.filter(b -> bundle == null || b.getName().equals(bundle))
+				.flatMap(b -> b.getPaths().values().stream())
+				.collect(Collectors.toList());
+	}
+	
+	private void startWatching() {
+		stopWatching();
+		if (!watchResources || resourcesDir == null) {
+			return;
+		}
+		try {
+			resourcesWatcher = new DirectoryWatcher(resourcesDir, WATCH_DELAY, 
+					paths -> SwingUtilities.invokeLater(() -> syncResources(paths)));
+		} catch (IOException e) {
+			// Changes made by other applications will not be noticed until the resources are reloaded
+			e.printStackTrace();
+		}
+	}
+	
+	private void stopWatching() {
+		if (resourcesWatcher != null) {
+			try {
+				resourcesWatcher.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			resourcesWatcher = null;
+		}
+	}
+	
+	/**
+	 * Replays the edits journaled by a previous session of the current resources which has not been 
+	 * closed properly, when the user wants to recover them. Afterwards a journal is opened for the 
+	 * edits of the current session.
+	 */
+	private void recoverJournal() {
+		Path path = EditJournal.getPath(JOURNAL_PATH, resourcesDir, bundle);
+		try {
+			List<EditJournal.Record> records = EditJournal.read(path);
+			List<EditJournal.Record> edits = records.stream()
+					.filter(r -> r.getOperation() != Operation.BASE)
+					.collect(Collectors.toList());
+			boolean recover = false;
+			if (!edits.isEmpty()) {
+				// The edits apply to the files as they were when the journal was started
+				boolean filesChanged = records.stream()
+						.filter(r -> r.getOperation() == Operation.BASE)
+						.anyMatch(r -> resources.stream().anyMatch(resource -> 
+								resource.getPath().getFileName().toString().equals(r.getResource()) 
+								&& !r.getKey().equals(String.valueOf(resourceHashes.get(resource.getPath())))));
+				recover = showConfirmation(MessageBundle.get("dialogs.journal.title"), 
+						MessageBundle.get(filesChanged ? "dialogs.journal.changed.text" : "dialogs.journal.text", edits.size()));
+			}
+			if (recover) {
+				changeResources(resource -> edits.forEach(record -> record.applyTo(resource)));
+				Set<String> keys = Sets.newTreeSet();
+				resources.forEach(resource -> keys.addAll(resource.getTranslationKeys()));
+				translationTree.setModel(new TranslationTreeModel(Lists.newArrayList(keys)));
+				journal = EditJournal.open(path);
+			} else {
+				Files.deleteIfExists(path);
+				journal = EditJournal.open(path);
+				for (EditJournal.Record record : getJournalBase()) {
+					journal.append(record);
+				}
+			}
+		} catch (IOException e) {
+			// Edits are kept in memory only until they are saved
+			e.printStackTrace();
+			closeJournal(true);
+		}
+	}
+	
+	/**
+	 * Appends an edit of the given resource, or of all resources when no resource is given, to the 
+	 * journal and postpones the autosave.
+	 */
+	private void journal(Operation operation, Resource resource, String key, String value) {
+		if (journal != null) {
+			try {
+				journal.append(new EditJournal.Record(operation, 
+						resource == null ? "" : resource.getPath().getFileName().toString(), key, value));
+			} catch (IOException e) {
+				// An incomplete journal must never be replayed
+				e.printStackTrace();
+				closeJournal(true);
+			}
+		}
+		if (autosaveTimer != null) {
+			autosaveTimer.restart();
+		}
+	}
+	
+	/**
+	 * Compacts the journal up to the given position, once every edit journaled before has been saved.
+	 */
+	private void compactJournal(long position) {
+		if (journal == null || position < 0) {
+			return;
+		}
+		try {
+			journal.compact(position, getJournalBase());
+		} catch (IOException e) {
+			e.printStackTrace();
+			closeJournal(true);
+		}
+	}
+	
+	private void closeJournal(boolean delete) {
+		if (autosaveTimer != null) {
+			autosaveTimer.stop();
+		}
+		if (journal != null) {
+			try {
+				if (delete) {
+					journal.delete();
+				} else {
+					journal.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			journal = null;
+		}
+	}
+	
+	private long getJournalPosition() {
+		try {
+			return journal == null ? -1 : journal.position();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+	
+	private List<EditJournal.Record> getJournalBase() {
+		return resources.stream()
+				.map(resource -> new EditJournal.Record(Operation.BASE, resource.getPath().getFileName().toString(), 
+						String.valueOf(resourceHashes.get(resource.getPath())), ""))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Waits for the resources being saved in the background to be written, so they are not lost when 
+	 * the current session is closed.
+	 */
+	private void awaitSave() {
+		while (saveWorker != null) {
+			SaveResourcesWorker worker = saveWorker;
+			try {
+				worker.get();
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+			}
+			worker.finish();
+		}
+	}
+	
+	private void cancelImport() {
+		if (importWorker != null) {
+			importWorker.cancel(true);
+			importWorker = null;
+		}
+	}
+	
+	/**
+	 * Applies a change to all resources as a batch, see {@link Resource#beginChanges()}. The pending 
+	 * resources are counted once after all resources have been changed, instead of once for every 
+	 * change of every resource.
+	 */
+	private void changeResources(Consumer<Resource> change) {
+		changingResources = true;
+		resources.forEach(Resource::beginChanges);
+		try {
+			resources.forEach(change);
+		} finally {
+			resources.forEach(Resource::commitChanges);
+			changingResources = false;
+			updatePendingResources();
+		}
+	}
+	
 	private void updateTitle() {
-		String dirtyPart = dirty ? "*" : "";
+		String dirtyPart = pendingResources > 0 ? "*(" + pendingResources + ") " : "";
 		String filePart = resourcesDir == null ? "" : resourcesDir.toString() + " - ";
 		setTitle(dirtyPart + filePart + TITLE);
 	}
 	
+	/**
+	 * Removes the nodes of the given keys from the translation tree, once their translations have been found 
+	 * to be removed from the file of a lazily loaded resource by another application. Nodes of keys which any 
+	 * of the other resources still has are kept.
+	 * 
+	 * @param 	keys the keys of the removed translations.
+	 */
+	private void removeTranslationNodes(Set<String> keys) {
+		keys.stream()
+			.filter(key -> resources.stream().noneMatch(r -> r.hasTranslation(key)))
+			.forEach(translationTree::removeNodeByKey);
+	}
+	
 	private void setupResource(Resource resource) {
-		resource.addListener(e -> setDirty(true));
+		// The keys are shared by the locales of a bundle, lazily loaded values are kept on disk instead
+		String bundleName = Resources.getBundleName(resource.getPath().getFileName().toString());
+		if (bundleName != null && !lazyLoading) {
+			Path bundlePath = resource.getPath().toAbsolutePath().resolveSibling(bundleName);
+			resource.storeTranslations(bundleStores.computeIfAbsent(bundlePath, p -> new BundleStore(compactValues)));
+		}
+		resource.addListener(e -> {
+			if (!changingResources) {
+				updatePendingResources();
+			}
+		});
 		ResourceField field = new ResourceField(resource);
 		field.addKeyListener(new ResourceFieldKeyListener());
 		resources.add(resource);
 		resourceFields.add(field);
+		bundles.stream().filter(b -> b.containsPath(resource.getPath())).forEach(b -> b.getResources().add(resource));
 	}
 	
 	private void setupUI() {
@@ -714,6 +1076,9 @@ public class Editor extends JFrame {
 	private void storeEditorState() {
 		// Store editor settings
 		settings.setProperty("minify_output", minifyOutput);
+		settings.setProperty("lazy_loading", lazyLoading);
+		settings.setProperty("compact_values", compactValues);
+		settings.setProperty("watch_resources", watchResources);
 		
 		// Store window bounds
 		settings.setProperty("window_width", getWidth());
@@ -737,6 +1102,362 @@ public class Editor extends JFrame {
 		settings.store(SETTINGS_PATH);
 	}
 	
+	/**
+	 * Gets the additional formats the given resource is written in whenever it is saved. The formats are 
+	 * configured per bundle by the 'output_formats.&lt;bundle&gt;' setting, or else for all bundles by the 
+	 * 'output_formats' setting, as a list of extensions like 'min.json,js,min.json.gz'.
+	 * 
+	 * @param 	resource the resource.
+	 * @return 	the output formats.
+	 */
+	private List<OutputFormat> getOutputFormats(Resource resource) {
+		Path path = resource.getPath();
+		String bundle = Resources.getBundleName(path.getFileName().toString());
+		List<String> extensions = Lists.newArrayList();
+		if (bundle != null) {
+			extensions = settings.getListProperty("output_formats." + bundle);
+		}
+		if (extensions.isEmpty()) {
+			extensions = settings.getListProperty("output_formats");
+		}
+		List<OutputFormat> formats = Lists.newArrayList();
+		for (String extension : extensions) {
+			if (extension.trim().isEmpty()) {
+				continue;
+			}
+			try {
+				OutputFormat format = OutputFormat.parse(extension);
+				// The resource file itself is never overwritten in another format
+				if (!format.resolve(path).equals(path)) {
+					formats.add(format);
+				}
+			} catch (IllegalArgumentException e) {
+				e.printStackTrace();
+			}
+		}
+		return formats;
+	}
+	
+	/**
+	 * Writes snapshots of the modified resources through a {@link SavePipeline}. Snapshots of which the 
+	 * translations equal the translations last saved are not written. Every file is written on its own, 
+	 * so a failure is reported for the failed file only and the other files are saved.
+	 */
+	private class SaveResourcesWorker extends SwingWorker<Void,Void> {
+		private final List<Resource.Snapshot> snapshots;
+		private final boolean prettyPrinting;
+		private final long journalPosition;
+		private final Map<Path,HashCode> fileHashes = Maps.newHashMap(resourceHashes);
+		private final Map<Resource.Snapshot,Future<HashCode>> futures = Maps.newLinkedHashMap();
+		private final Map<Resource.Snapshot,List<OutputFormat>> outputFormats = Maps.newHashMap();
+		
+		public SaveResourcesWorker(List<Resource.Snapshot> snapshots, boolean prettyPrinting, long journalPosition) {
+			this.snapshots = snapshots;
+			this.prettyPrinting = prettyPrinting;
+			this.journalPosition = journalPosition;
+			snapshots.forEach(snapshot -> outputFormats.put(snapshot, getOutputFormats(snapshot.getResource())));
+		}
+		
+		@Override
+		protected Void doInBackground() throws Exception {
+			int threads = Math.max(1, Math.min(snapshots.size(), Runtime.getRuntime().availableProcessors()));
+			try (SavePipeline pipeline = new SavePipeline(threads, MAX_SAVE_BYTES_IN_FLIGHT)) {
+				snapshots.forEach(snapshot -> futures.put(snapshot, save(pipeline, snapshot)));
+				for (Future<HashCode> future : futures.values()) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						// Reported once the worker has finished
+					}
+				}
+			}
+			return null;
+		}
+		
+		@Override
+		protected void done() {
+			finish();
+		}
+		
+		/**
+		 * Finishes the worker on the event dispatch thread, marking the written snapshots as saved.
+		 */
+		public void finish() {
+			if (saveWorker != this) {
+				return;
+			}
+			saveWorker = null;
+			List<Resource> failedResources = Lists.newArrayList();
+			futures.forEach((snapshot, future) -> {
+				Resource resource = snapshot.getResource();
+				try {
+					HashCode hash = future.get();
+					if (!resources.contains(resource)) {
+						return;
+					}
+					resource.markSaved(snapshot);
+					if (hash != null) {
+						// Remember the hash of our own write, so the change is not read again when the file is watched
+						resourceHashes.put(resource.getPath(), hash);
+					}
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+					failedResources.add(resource);
+					showError(MessageBundle.get("resources.write.error.single", resource.getPath().toString()));
+				}
+			});
+			if (failedResources.isEmpty()) {
+				// The journaled edits have been saved, only the edits made while saving are kept
+				compactJournal(journalPosition);
+			}
+			updatePendingResources();
+			if (saveRequested) {
+				saveRequested = false;
+				saveResources();
+			}
+		}
+		
+		private Future<HashCode> save(SavePipeline pipeline, Resource.Snapshot snapshot) {
+			if (!snapshot.isContentModified()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			// Only the changed translations are written when the file has not been changed by others
+			return pipeline.submit(snapshot, fileHashes.get(snapshot.getResource().getPath()), prettyPrinting, 
+					outputFormats.get(snapshot));
+		}
+	}
+	
+	/**
+	 * Reads resources on a pool of worker threads, so the event dispatch thread is never blocked 
+	 * by parsing. Files of which the hash equals a known hash are not read again. Only the read 
+	 * resources are handed back to the event dispatch thread once all files have been read.
+	 */
+	private abstract class ReadResourcesWorker<T> extends SwingWorker<T,Void> {
+		protected final List<Path> paths;
+		protected final Map<Path,Resource> readResources = Maps.newHashMap();
+		protected final Map<Path,HashCode> hashes = Maps.newConcurrentMap();
+		protected final List<Path> failedPaths = Lists.newArrayList();
+		private final Map<Path,HashCode> knownHashes;
+		private final ProgressMonitor progressMonitor;
+		private final Timer cancelTimer;
+		
+		public ReadResourcesWorker(String message, List<Path> paths, Map<Path,HashCode> knownHashes) {
+			this.paths = paths;
+			this.knownHashes = knownHashes;
+			this.progressMonitor = new ProgressMonitor(Editor.this, message, null, 0, paths.size());
+			this.cancelTimer = new Timer(100, e -> {
+				if (progressMonitor.isCanceled()) {
+					cancel(true);
+				}
+			});
+			cancelTimer.start();
+		}
+		
+		protected void readAll() throws InterruptedException {
+			int threads = Math.max(1, Math.min(paths.size(), Runtime.getRuntime().availableProcessors()));
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				CompletionService<Resource> completionService = new ExecutorCompletionService<>(executor);
+				Map<Future<Resource>,Path> futures = Maps.newHashMap();
+				paths.forEach(path -> futures.put(completionService.submit(() -> readResource(path)), path));
+				
+				for (int i = 0; i < paths.size(); i++) {
+					Future<Resource> future = completionService.take();
+					Path path = futures.get(future);
+					try {
+						Resource resource = future.get();
+						if (resource != null) {
+							readResources.put(path, resource);
+						}
+					} catch (ExecutionException e) {
+						e.getCause().printStackTrace();
+						failedPaths.add(path);
+					}
+					int progress = i + 1;
+					SwingUtilities.invokeLater(() -> {
+						progressMonitor.setNote(path.getFileName().toString());
+						progressMonitor.setProgress(progress);
+					});
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		
+		/**
+		 * Finishes the worker on the event dispatch thread.
+		 * 
+		 * @return 	whether the read resources should be applied to the editor.
+		 */
+		protected boolean finish() {
+			cancelTimer.stop();
+			progressMonitor.close();
+			if (isCancelled() || importWorker != this) {
+				return false;
+			}
+			importWorker = null;
+			// Make sure files which could not be read are read again on the next reload
+			failedPaths.forEach(hashes::remove);
+			failedPaths.forEach(path -> showError(MessageBundle.get("resources.open.error.single", path.toString())));
+			return true;
+		}
+		
+		private Resource readResource(Path path) throws IOException {
+			HashCode hash = Resources.hash(path);
+			hashes.put(path, hash);
+			if (hash.equals(knownHashes.get(path))) {
+				return null;
+			}
+			if (lazyLoading) {
+				// Values are read on demand, so there is nothing worth caching
+				return Resources.readLazy(path, keys -> SwingUtilities.invokeLater(() -> removeTranslationNodes(keys)));
+			}
+			// The hash is passed on, so the cache does not read the file once more to hash it
+			return Resources.read(path, resourceCache, hash);
+		}
+	}
+	
+	/**
+	 * Reads all resources of an import and builds the translation tree of the imported resources.
+	 */
+	private class ImportResourcesWorker extends ReadResourcesWorker<TranslationTreeModel> {
+		private final Runnable onImported;
+		private final List<Resource> importedResources = Lists.newArrayList();
+		
+		public ImportResourcesWorker(List<Path> paths, Runnable onImported) {
+			super(MessageBundle.get("resources.open.progress"), paths, Maps.newHashMap());
+			this.onImported = onImported;
+		}
+		
+		@Override
+		protected TranslationTreeModel doInBackground() throws Exception {
+			readAll();
+			
+			// Keep the order in which the resources were found on disk
+			Set<String> keys = Sets.newTreeSet();
+			paths.stream().map(readResources::get).filter(r -> r != null).forEach(resource -> {
+				keys.addAll(resource.getTranslationKeys());
+				importedResources.add(resource);
+			});
+			return new TranslationTreeModel(Lists.newArrayList(keys));
+		}
+		
+		@Override
+		protected void done() {
+			if (!finish()) {
+				return;
+			}
+			try {
+				TranslationTreeModel model = get();
+				importedResources.forEach(Editor.this::setupResource);
+				resourceHashes.putAll(hashes);
+				translationTree.setModel(model);
+				recoverJournal();
+				updateUI();
+				startWatching();
+				if (onImported != null) {
+					onImported.run();
+				}
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+				showError(MessageBundle.get("resources.open.error.multiple"));
+			}
+		}
+	}
+	
+	/**
+	 * Reads the resources which have been changed on disk and applies the changes to the current 
+	 * resources and translation tree. Only the nodes of added or removed keys are inserted into or 
+	 * removed from the tree, so the expanded and selected nodes are kept.
+	 */
+	private class ReloadResourcesWorker extends ReadResourcesWorker<Void> {
+		private final boolean discardChanges;
+		
+		public ReloadResourcesWorker(List<Path> paths, Map<Path,HashCode> knownHashes, boolean discardChanges) {
+			super(MessageBundle.get("resources.reload.progress"), paths, knownHashes);
+			this.discardChanges = discardChanges;
+		}
+		
+		@Override
+		protected Void doInBackground() throws Exception {
+			readAll();
+			return null;
+		}
+		
+		@Override
+		protected void done() {
+			if (!finish()) {
+				return;
+			}
+			TranslationTreeModel model = (TranslationTreeModel) translationTree.getModel();
+			Set<String> addedKeys = Sets.newTreeSet();
+			Set<String> removedKeys = Sets.newTreeSet();
+			
+			// Remove the resources of which the file has been deleted, unless they have unsaved changes
+			Lists.newArrayList(resources).stream()
+				.filter(r -> !paths.contains(r.getPath()) && (discardChanges || !r.hasChanges()))
+				.forEach(resource -> {
+					removedKeys.addAll(resource.getTranslationKeys());
+					resource.releaseTranslations();
+					resources.remove(resource);
+					resourceFields.removeIf(field -> field.getResource() == resource);
+					resourceHashes.remove(resource.getPath());
+				});
+			bundleStores.values().removeIf(store -> store.getColumnCount() == 0);
+			
+			// Apply the changed and added resources
+			paths.stream().filter(readResources::containsKey).forEach(path -> {
+				Resource resource = readResources.get(path);
+				Resource existing = resources.stream().filter(r -> r.getPath().equals(path)).findFirst().orElse(null);
+				if (existing == null) {
+					addedKeys.addAll(resource.getTranslationKeys());
+					setupResource(resource);
+				} else {
+					SortedSet<String> existingKeys = existing.getTranslationKeys();
+					if (discardChanges || !keepChanges(existing, resource)) {
+						existing.replaceTranslations(resource);
+					} else {
+						existing.mergeTranslations(resource);
+					}
+					SortedSet<String> keys = existing.getTranslationKeys();
+					removedKeys.addAll(Sets.difference(existingKeys, keys));
+					addedKeys.addAll(Sets.difference(keys, existingKeys));
+				}
+			});
+			resourceHashes.putAll(hashes);
+			if (discardChanges) {
+				// Journaled edits have been discarded
+				compactJournal(getJournalPosition());
+			}
+			
+			// A removed key might still be used by any of the other resources
+			removedKeys.stream()
+				.filter(key -> resources.stream().noneMatch(r -> r.hasTranslation(key)))
+				.forEach(model::removeNodeByKey);
+			addedKeys.forEach(model::insertNodeByKey);
+			
+			TranslationTreeNode selectedNode = translationTree.getSelectedNode();
+			if (selectedNode == null) {
+				translationTree.setSelectedNode((TranslationTreeNode) model.getRoot());
+			} else {
+				String key = selectedNode.getKey();
+				resourceFields.forEach(f -> f.updateValue(key));
+			}
+			updatePendingResources();
+			updateUI();
+		}
+		
+		private boolean keepChanges(Resource existing, Resource resource) {
+			SortedSet<String> conflictingKeys = existing.getConflictingKeys(resource);
+			if (conflictingKeys.isEmpty()) {
+				return true;
+			}
+			return showConfirmation(MessageBundle.get("dialogs.resource.changed.title"), 
+					MessageBundle.get("dialogs.resource.changed.text", existing.getPath().getFileName().toString(), 
+							conflictingKeys.size(), String.join(", ", Iterables.limit(conflictingKeys, 5))));
+		}
+	}
+	
 	private class TranslationTreeNodeSelectionListener implements TreeSelectionListener {
 		@Override
 		public void valueChanged(TreeSelectionEvent e) {
@@ -766,7 +1487,12 @@ public class Editor extends JFrame {
 			ResourceField field = (ResourceField) e.getSource();
 			String key = translationTree.getSelectedNode().getKey();
 			String value = field.getValue();
-			field.getResource().storeTranslation(key, value);
+			Resource resource = field.getResource();
+			long modificationCount = resource.getModificationCount();
+			resource.storeTranslation(key, value);
+			if (resource.getModificationCount() != modificationCount) {
+				journal(Operation.STORE, resource, key, value);
+			}
 		}
 	}
 	
@@ -787,6 +1513,7 @@ public class Editor extends JFrame {
 		@Override
 		public void windowClosing(WindowEvent e) {
 			if (closeCurrentSession()) {
+				closeJournal(true);
 				storeEditorState();
 				System.exit(0);
 			}
@@ -44,8 +44,11 @@ public class EditorMenu extends JMenuBar {
 		setupUI();
 	}
 	
-	public void setSaveable(boolean saveable) {
-		saveMenuItem.setEnabled(saveable);
+	public void setSaveable(int pendingResources) {
+		saveMenuItem.setEnabled(pendingResources > 0);
+		saveMenuItem.setText(pendingResources > 0 
+				? MessageBundle.get("menu.file.save.pending.title", pendingResources) 
+				: MessageBundle.get("menu.file.save.title"));
 	}
 	
 	@Override
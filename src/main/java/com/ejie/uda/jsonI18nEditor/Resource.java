@@ -4,12 +4,28 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import com.ejie.uda.jsonI18nEditor.util.BundleStore;
+import com.ejie.uda.jsonI18nEditor.util.SnapshotSortedMap;
+import com.ejie.uda.jsonI18nEditor.util.SortedKeySet;
 import com.ejie.uda.jsonI18nEditor.util.TranslationKeys;
+import com.ejie.uda.jsonI18nEditor.util.VersionedSortedMap;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 /**
  * A resource is a container for storing translation data and is defined by the following properties:
@@ -19,19 +35,33 @@ import com.google.common.collect.Maps;
  * <li>{@code path}	the path to the translation file on disk.</li>
  * <li>{@code locale} the locale of the translations.</li>
  * <li>{@code translations} a sorted map containing the translations by key value pair.</li>
+ * <li>{@code arrayKeys} the keys of the translations which are arrays in the translation file.</li>
  * </ul>
  * 
  * <p>Objects can listen to a resource by adding a {@link ResourceListener} which 
- * will be called when any change is made to the {@code translations}.</p>
+ * will be called when any change is made to the {@code translations}. The listeners are told which 
+ * translations have changed by the {@link ResourceEvent}, and can be added and removed on any thread.</p>
  * 
  * @author Jacob
  */
 public class Resource {
 	private final Path path;
 	private final Locale locale;
-	private final SortedMap<String,String> translations;
-	private final List<ResourceListener> listeners = Lists.newLinkedList();
+	private final SortedSet<String> arrayKeys;
+	private SortedMap<String,String> translations;
+	private BundleStore store;
+	private final List<ResourceListener> listeners = new CopyOnWriteArrayList<>();
+	private final Map<String,String> originalTranslations = Maps.newHashMap();
+	private final Map<String,String> pendingTranslations = Maps.newHashMap();
 	private final ResourceType type;
+	private long modificationCount;
+	private long savedModificationCount;
+	private HashCode savedHash;
+	private int batchDepth;
+	private boolean batchChanged;
+	private ResourceEvent.Type pendingType;
+	private String pendingKey;
+	private String pendingNewKey;
 	
 	/**
 	 * An enum for defining the type of a resource.
@@ -40,11 +70,100 @@ public class Resource {
 		JSON, ES6
 	}
 	
+	/**
+	 * An immutable snapshot of the translations of a resource, which can be written to disk on another 
+	 * thread while the resource itself is being modified.
+	 */
+	public static class Snapshot {
+		private final Resource resource;
+		private final long modificationCount;
+		private final HashCode savedHash;
+		private final SortedMap<String,String> translations;
+		private final Set<String> arrayKeys;
+		private final Set<String> changedKeys;
+		private HashCode hash;
+		
+		private Snapshot(Resource resource) {
+			this.resource = resource;
+			this.modificationCount = resource.modificationCount;
+			this.savedHash = resource.savedHash;
+			this.translations = resource.snapshotTranslations();
+			this.arrayKeys = ImmutableSet.copyOf(resource.arrayKeys);
+			this.changedKeys = ImmutableSet.copyOf(resource.originalTranslations.keySet());
+		}
+		
+		/**
+		 * Gets the resource the snapshot has been taken of.
+		 * 
+		 * @return 	the resource.
+		 */
+		public Resource getResource() {
+			return resource;
+		}
+		
+		/**
+		 * Gets the translations of the resource at the time the snapshot was taken.
+		 * 
+		 * @return 	the translations.
+		 */
+		public SortedMap<String,String> getTranslations() {
+			return translations;
+		}
+		
+		/**
+		 * Gets the keys of the translations which are arrays at the time the snapshot was taken.
+		 * 
+		 * @return 	the array keys.
+		 */
+		public Set<String> getArrayKeys() {
+			return arrayKeys;
+		}
+		
+		/**
+		 * Gets the keys of the translations which have been changed, added or removed since the resource 
+		 * was last read or saved. All other translations equal the translations in the resource file.
+		 * 
+		 * @return 	the changed keys.
+		 */
+		public Set<String> getChangedKeys() {
+			return changedKeys;
+		}
+		
+		/**
+		 * Gets a hash of the translations of the snapshot.
+		 * 
+		 * @return 	the hash of the translations.
+		 */
+		public HashCode getHash() {
+			if (hash == null) {
+				hash = hashTranslations(translations);
+			}
+			return hash;
+		}
+		
+		/**
+		 * Checks whether the translations of the snapshot differ from the translations last saved, 
+		 * see {@link Resource#isContentModified()}.
+		 * 
+		 * @return 	whether the translations differ from the translations last saved.
+		 */
+		public boolean isContentModified() {
+			return savedHash == null || !savedHash.equals(getHash());
+		}
+	}
+	
 	/**
 	 * See {@link #Resource(ResourceType, Path, Locale, SortedMap)}.
 	 */
 	public Resource(ResourceType type, Path path, Locale locale) {
-		this(type, path, locale, Maps.newTreeMap());
+		this(type, path, locale, new VersionedSortedMap<>());
+	}
+	
+	/**
+	 * See {@link #Resource(ResourceType, Path, Locale, SortedMap, Set)}.
+	 */
+	public Resource(ResourceType type, Path path, Locale locale, SortedMap<String,String> translations) {
+		this(type, path, locale, translations, ImmutableSet.of());
 	}
 	
 	/**
@@ -54,10 +173,13 @@ public class Resource {
 	 * @param 	path the path to the file on disk.
 	 * @param 	locale the locale of the translations.
 	 * @param 	translations the actual translation data.
+	 * @param 	arrayKeys the keys of the translations which are arrays, any other parent key is an object.
 	 */
-	public Resource(ResourceType type, Path path, Locale locale, SortedMap<String,String> translations) {
+	public Resource(ResourceType type, Path path, Locale locale, SortedMap<String,String> translations, 
+			Set<String> arrayKeys) {
 		this.path = path;
 		this.translations = translations;
+		this.arrayKeys = Sets.newTreeSet(arrayKeys);
 		this.locale = locale;
 		this.type = type;
 	}
@@ -92,14 +214,38 @@ public class Resource {
 	/**
 	 * Gets a map of the translations of the resource.
 	 * 
-	 * <p>The returned map is an immutable sorted map. Modifications to the translations should be done via 
+	 * <p>The returned map is an immutable sorted map, which is not affected by later modifications of the 
+	 * translations. Modifications to the translations should be done via 
 	 * {@link #storeTranslation(String, String)}, {@link #removeTranslation(String)} or 
 	 * {@link #renameTranslation(String, String)}.</p>
 	 * 
 	 * @return 	the translations of the resource.
 	 */
 	public SortedMap<String,String> getTranslations() {
-		return ImmutableSortedMap.copyOf(translations);
+		return snapshotTranslations();
+	}
+	
+	/**
+	 * Gets the keys of the translations which are arrays, see {@link TranslationKeys#isArrayIndex(String, int)}.
+	 * Any other key which has child keys is an object.
+	 * 
+	 * @return 	the sorted array keys of the resource.
+	 */
+	public SortedSet<String> getArrayKeys() {
+		return ImmutableSortedSet.copyOf(arrayKeys);
+	}
+	
+	/**
+	 * Gets the keys of the translations of the resource, without reading any of the values.
+	 * 
+	 * @return 	the sorted translation keys of the resource.
+	 */
+	public SortedSet<String> getTranslationKeys() {
+		if (translations instanceof SnapshotSortedMap) {
+			return new SortedKeySet<>(((SnapshotSortedMap<String,String>) translations).snapshot());
+		}
+		// Copying the translations themselves would read every value of lazily loaded translations
+		return ImmutableSortedSet.copyOf(translations.keySet());
 	}
 	
 	/**
@@ -112,6 +258,190 @@ public class Resource {
 		return translations.get(key);
 	}
 	
+	/**
+	 * Checks whether the resource has a translation for the given key, without reading its value.
+	 * 
+	 * @param 	key the key of the translation.
+	 * @return 	whether there is a translation for the given key.
+	 */
+	public boolean hasTranslation(String key) {
+		return translations.containsKey(key);
+	}
+	
+	/**
+	 * Moves the translations of the resource into a new column of the given store, so the translation keys 
+	 * are shared with the other locales of the bundle. The translations stay the same.
+	 * 
+	 * @param 	store the store of the bundle of the resource.
+	 */
+	public void storeTranslations(BundleStore store) {
+		releaseTranslations();
+		translations = store.addColumn(translations);
+		this.store = store;
+	}
+	
+	/**
+	 * Moves the translations of the resource out of the store they have been moved into by 
+	 * {@link #storeTranslations(BundleStore)}, typically when the resource is closed.
+	 */
+	public void releaseTranslations() {
+		if (store != null) {
+			translations = store.removeColumn(translations);
+			store = null;
+		}
+	}
+	
+	/**
+	 * Replaces all translations of the resource by the translations of the given resource, which is 
+	 * typically a resource read again from the same file. Any unsaved changes are discarded. Listeners 
+	 * are notified of the translations which have changed by a single {@link ResourceEvent.Type#BULK} event, 
+	 * or by a {@link ResourceEvent.Type#RESET} event when the translations can not be compared without 
+	 * reading every value, like lazily loaded translations.
+	 * 
+	 * @param 	resource the resource to take the translations from.
+	 */
+	public void replaceTranslations(Resource resource) {
+		SortedMap<String,String> previousTranslations = snapshotComparableTranslations();
+		Map<String,String> previousPendingTranslations = Maps.newHashMap(pendingTranslations);
+		replace(resource);
+		notifyReplaced(previousTranslations, previousPendingTranslations);
+	}
+	
+	/**
+	 * Merges the translations of the given resource, which is typically a resource read again from the 
+	 * same file after it has been changed on disk, into the translations of the resource. 
+	 * Translations with unsaved changes are kept, all other translations are replaced.
+	 * Listeners are notified like by {@link #replaceTranslations(Resource)}.
+	 * 
+	 * @param 	resource the resource to take the translations from.
+	 */
+	public void mergeTranslations(Resource resource) {
+		SortedMap<String,String> previousTranslations = snapshotComparableTranslations();
+		Map<String,String> previousPendingTranslations = Maps.newHashMap(pendingTranslations);
+		Map<String,String> changes = Maps.newHashMap();
+		originalTranslations.keySet().forEach(key -> changes.put(key, translations.get(key)));
+		Set<String> changedArrayKeys = Sets.newHashSet(arrayKeys);
+		Set<String> keptArrayKeys = Sets.newHashSet();
+		replace(resource);
+		changes.forEach((key, value) -> {
+			String original = translations.get(key);
+			if (value == null ? original == null : value.equals(original)) {
+				return;
+			}
+			originalTranslations.put(key, original);
+			if (value == null) {
+				translations.remove(key);
+			} else {
+				removeParents(key);
+				removeChildren(key);
+				translations.put(key, value);
+				// Keep the arrays the changed translation has been added to
+				forEachParentKey(key, parentKey -> {
+					if (changedArrayKeys.contains(parentKey) && arrayKeys.add(parentKey)) {
+						keptArrayKeys.add(parentKey);
+					}
+				});
+				updateArrayKeys(key);
+			}
+		});
+		keptArrayKeys.forEach(this::checkArrayKey);
+		if (hasChanges()) {
+			modificationCount++;
+		}
+		notifyReplaced(previousTranslations, previousPendingTranslations);
+	}
+	
+	/**
+	 * Gets the keys of the translations with unsaved changes which have been changed in the given 
+	 * resource as well, compared to the translations the changes were made to.
+	 * 
+	 * @param 	resource the resource to compare with, typically a resource read again from the same file.
+	 * @return 	the sorted keys of the conflicting translations.
+	 */
+	public SortedSet<String> getConflictingKeys(Resource resource) {
+		return originalTranslations.entrySet().stream()
+				.filter(e -> {
+					String value = resource.translations.get(e.getKey());
+					return !Objects.equals(value, e.getValue()) && !Objects.equals(value, translations.get(e.getKey()));
+				})
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toCollection(Sets::newTreeSet));
+	}
+	
+	/**
+	 * Checks whether the resource has any unsaved changes.
+	 * 
+	 * @return 	whether there are unsaved changes.
+	 */
+	public boolean hasChanges() {
+		return !originalTranslations.isEmpty();
+	}
+	
+	/**
+	 * Marks the current translations as saved, after they have been written to disk.
+	 */
+	public void clearChanges() {
+		markSaved(hashTranslations(translations));
+	}
+	
+	/**
+	 * Takes a snapshot of the current translations, to save them without blocking any further modifications.
+	 * 
+	 * @return 	the snapshot.
+	 */
+	public Snapshot createSnapshot() {
+		return new Snapshot(this);
+	}
+	
+	/**
+	 * Marks the translations of the given snapshot as saved, after they have been written to disk. 
+	 * Modifications made after the snapshot was taken are still pending to be saved.
+	 * 
+	 * @param 	snapshot the snapshot which has been saved.
+	 */
+	public void markSaved(Snapshot snapshot) {
+		if (snapshot.modificationCount == modificationCount) {
+			originalTranslations.clear();
+		}
+		savedModificationCount = snapshot.modificationCount;
+		savedHash = snapshot.getHash();
+	}
+	
+	/**
+	 * Gets the number of modifications made to the translations of the resource. The number is increased 
+	 * by every modification, so it can be used to check whether the resource has been modified since a 
+	 * previous call.
+	 * 
+	 * @return 	the number of modifications.
+	 */
+	public long getModificationCount() {
+		return modificationCount;
+	}
+	
+	/**
+	 * Checks whether the translations have been modified since they were read or last saved.
+	 * 
+	 * @return 	whether the translations have been modified.
+	 */
+	public boolean isModified() {
+		return modificationCount != savedModificationCount;
+	}
+	
+	/**
+	 * Checks whether the translations differ from the translations last saved. Unlike {@link #isModified()}, 
+	 * modifications which have been undone again are not taken into account once the resource has been saved, 
+	 * as the translations are compared with a hash of the translations saved. The resource is left modified, 
+	 * it is marked as saved when a snapshot of it is saved, see {@link #markSaved(Snapshot)}.
+	 * 
+	 * @return 	whether the translations differ from the translations last saved.
+	 */
+	public boolean isContentModified() {
+		if (!isModified()) {
+			return false;
+		}
+		return savedHash == null || !savedHash.equals(hashTranslations(translations));
+	}
+	
 	/**
 	 * Stores a translation to the resource's translations.
 	 * 
@@ -128,14 +458,11 @@ public class Resource {
 	public void storeTranslation(String key, String value) {
 		String existing = translations.get(key);
 		if (existing != null && existing.equals(value)) return;
-		removeParents(key);
-		removeChildren(key);
-		if (value.isEmpty()) {
-			translations.remove(key);
-		} else {
-			translations.put(key, value);
+		if (!value.isEmpty()) {
+			addArrayKeys(key);
 		}
-		notifyListeners();
+		putTranslation(key, value);
+		notifyListeners(value.isEmpty() ? ResourceEvent.Type.REMOVE : ResourceEvent.Type.STORE, key, null);
 	}
 	
 	/**
@@ -145,9 +472,13 @@ public class Resource {
 	 * @param 	key the key of the translation to remove.
 	 */
 	public void removeTranslation(String key) {
+		if (!translations.containsKey(key) && childTranslations(key).isEmpty()) {
+			return;
+		}
 		removeChildren(key);
+		recordChange(key);
 		translations.remove(key);
-		notifyListeners();
+		notifyListeners(ResourceEvent.Type.REMOVE, key, null);
 	}
 	
 	/**
@@ -159,7 +490,7 @@ public class Resource {
 	 */
 	public void renameTranslation(String key, String newKey) {
 		duplicateTranslation(key, newKey, false);
-		notifyListeners();
+		notifyListeners(ResourceEvent.Type.RENAME, key, newKey);
 	}
 	
 	/**
@@ -170,7 +501,33 @@ public class Resource {
 	 */
 	public void duplicateTranslation(String key, String newKey) {
 		duplicateTranslation(key, newKey, true);
-		notifyListeners();
+		notifyListeners(ResourceEvent.Type.DUPLICATE, key, newKey);
+	}
+	
+	/**
+	 * Begins a batch of changes to the translations. Listeners are not notified of the changes made 
+	 * within the batch until the batch is committed, at which point they are notified once if anything 
+	 * has changed. Batches can be nested, only committing the outermost batch notifies the listeners.
+	 * 
+	 * <p>The event of a batch holds the changes of all translations changed within the batch. It has the 
+	 * type of the change made when only a single change has been made, {@link ResourceEvent.Type#RESET} when 
+	 * any of the changes is unknown, and {@link ResourceEvent.Type#BULK} otherwise.</p>
+	 */
+	public void beginChanges() {
+		batchDepth++;
+	}
+	
+	/**
+	 * Commits a batch of changes begun by {@link #beginChanges()}.
+	 * 
+	 * @throws 	IllegalStateException if no batch has been begun.
+	 */
+	public void commitChanges() {
+		Preconditions.checkState(batchDepth > 0, "No batch of changes has been begun");
+		if (--batchDepth == 0 && batchChanged) {
+			batchChanged = false;
+			fireResourceChanged();
+		}
 	}
 	
 	/**
@@ -192,41 +549,238 @@ public class Resource {
 		listeners.remove(listener);
 	}
 	
+	private void putTranslation(String key, String value) {
+		removeParents(key);
+		removeChildren(key);
+		recordChange(key);
+		if (value.isEmpty()) {
+			translations.remove(key);
+		} else {
+			translations.put(key, value);
+			updateArrayKeys(key);
+		}
+	}
+	
+	private void replace(Resource resource) {
+		translations.keySet().retainAll(resource.translations.keySet());
+		translations.putAll(resource.translations);
+		arrayKeys.clear();
+		arrayKeys.addAll(resource.arrayKeys);
+		originalTranslations.clear();
+		savedModificationCount = modificationCount;
+		savedHash = null;
+	}
+	
 	private void duplicateTranslation(String key, String newKey, boolean keepOld) {
 		Map<String,String> newTranslations = Maps.newTreeMap();
-		translations.keySet().forEach(k -> {
-			if (TranslationKeys.isChildKeyOf(k, key)) {
-				String nk = TranslationKeys.create(newKey, TranslationKeys.childKey(k, key));
-				newTranslations.put(nk, translations.get(k));
-			}
-		});
+		childTranslations(key).forEach((k, v) -> 
+				newTranslations.put(TranslationKeys.create(newKey, k.substring(key.length() + 1)), v));
 		if (translations.containsKey(key)) {
 			newTranslations.put(newKey, translations.get(key));
 		}
+		// The arrays within the translation are arrays within the new translation as well
+		Set<String> newArrayKeys = Sets.newHashSet();
+		if (arrayKeys.contains(key)) {
+			newArrayKeys.add(newKey);
+		}
+		arrayKeys.subSet(key + ".", key + "/").forEach(k -> newArrayKeys.add(newKey + k.substring(key.length())));
 		if (!keepOld) {
 			removeChildren(key);
+			recordChange(key);
 			translations.remove(key);
 		}
-		newTranslations.forEach(this::storeTranslation);
+		arrayKeys.addAll(newArrayKeys);
+		newTranslations.forEach((k, v) -> {
+			if (!v.equals(translations.get(k))) {
+				putTranslation(k, v);
+			}
+		});
+		newArrayKeys.forEach(this::checkArrayKey);
 	}
 	
 	private void removeChildren(String key) {
-		Lists.newLinkedList(translations.keySet()).forEach(k -> {
-			if (TranslationKeys.isChildKeyOf(k, key)) {
-				translations.remove(k);
+		SortedMap<String,String> children = childTranslations(key);
+		children.keySet().forEach(this::recordChange);
+		children.clear();
+		arrayKeys.remove(key);
+		arrayKeys.subSet(key + ".", key + "/").clear();
+	}
+	
+	/**
+	 * Turns the parents of the given key which have no child keys yet into arrays, when the key is an array 
+	 * element of them, like the parent {@code a} of the key {@code a.[0].b} stored in a new resource.
+	 */
+	private void addArrayKeys(String key) {
+		forEachParentKey(key, parentKey -> {
+			if (TranslationKeys.isArrayIndex(key, parentKey.length() + 1) && childTranslations(parentKey).isEmpty()) {
+				arrayKeys.add(parentKey);
+			}
+		});
+	}
+	
+	/**
+	 * Turns the arrays containing the given key into objects, when the key is no array element of them.
+	 */
+	private void updateArrayKeys(String key) {
+		if (arrayKeys.isEmpty()) {
+			return;
+		}
+		forEachParentKey(key, parentKey -> {
+			if (arrayKeys.contains(parentKey) && !TranslationKeys.isArrayIndex(key, parentKey.length() + 1)) {
+				arrayKeys.remove(parentKey);
 			}
 		});
 	}
 	
+	/**
+	 * Turns the given array into an object when any of its child keys is no array element, or removes it 
+	 * when it has no child keys at all.
+	 */
+	private void checkArrayKey(String arrayKey) {
+		Set<String> children = childTranslations(arrayKey).keySet();
+		if (children.isEmpty() || children.stream().anyMatch(k -> !TranslationKeys.isArrayIndex(k, arrayKey.length() + 1))) {
+			arrayKeys.remove(arrayKey);
+		}
+	}
+	
+	private static void forEachParentKey(String key, Consumer<String> action) {
+		for (int dot = key.indexOf('.'); dot != -1; dot = key.indexOf('.', dot + 1)) {
+			action.accept(key.substring(0, dot));
+		}
+	}
+	
 	private void removeParents(String key) {
-		Lists.newLinkedList(translations.keySet()).forEach(k -> {
-			if (TranslationKeys.isChildKeyOf(key, k)) {
-				translations.remove(k);
+		forEachParentKey(key, parentKey -> {
+			if (translations.containsKey(parentKey)) {
+				recordChange(parentKey);
+				translations.remove(parentKey);
+			}
+		});
+	}
+	
+	/**
+	 * Gets an immutable version of the translations, which is taken in constant time when the translations
+	 * support it and copied otherwise.
+	 */
+	private SortedMap<String,String> snapshotTranslations() {
+		if (translations instanceof SnapshotSortedMap) {
+			return ((SnapshotSortedMap<String,String>) translations).snapshot();
+		}
+		return ImmutableSortedMap.copyOf(translations);
+	}
+	
+	/**
+	 * Gets a view of the translations of which the key is a child key of the given key, see 
+	 * {@link TranslationKeys#isChildKeyOf(String, String)}. The child keys of a key form a single range 
+	 * of the sorted keys, as '/' is the character following '.', so they are found without looking at 
+	 * any of the other keys.
+	 */
+	private SortedMap<String,String> childTranslations(String key) {
+		return translations.subMap(key + ".", key + "/");
+	}
+	
+	private void recordChange(String key) {
+		modificationCount++;
+		if (!originalTranslations.containsKey(key)) {
+			originalTranslations.put(key, translations.get(key));
+		}
+		if (!pendingTranslations.containsKey(key)) {
+			pendingTranslations.put(key, translations.get(key));
+		}
+	}
+	
+	private void markSaved(HashCode hash) {
+		originalTranslations.clear();
+		savedModificationCount = modificationCount;
+		savedHash = hash;
+	}
+	
+	private static HashCode hashTranslations(Map<String,String> translations) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		translations.forEach((key, value) -> {
+			hasher.putInt(key.length()).putUnencodedChars(key);
+			hasher.putInt(value.length()).putUnencodedChars(value);
+		});
+		return hasher.hash();
+	}
+	
+	/**
+	 * Gets a snapshot of the translations to compare the translations with after they have been replaced, 
+	 * or {@code null} when they can not be taken in constant time, as comparing lazily loaded translations 
+	 * would read every value.
+	 */
+	private SortedMap<String,String> snapshotComparableTranslations() {
+		return translations instanceof SnapshotSortedMap ? snapshotTranslations() : null;
+	}
+	
+	/**
+	 * Notifies the listeners of the translations which differ from the given previous translations, after 
+	 * the translations have been replaced. The changes recorded while replacing them are dropped, as they 
+	 * do not hold the values before the replacement. When there are no previous translations to compare 
+	 * with, the listeners are notified that any translation may have changed.
+	 */
+	private void notifyReplaced(SortedMap<String,String> previousTranslations, Map<String,String> previousPendingTranslations) {
+		pendingTranslations.clear();
+		pendingTranslations.putAll(previousPendingTranslations);
+		if (previousTranslations == null) {
+			notifyListeners(ResourceEvent.Type.RESET, null, null);
+			return;
+		}
+		int pendingCount = pendingTranslations.size();
+		previousTranslations.forEach((key, value) -> {
+			if (!value.equals(translations.get(key)) && !pendingTranslations.containsKey(key)) {
+				pendingTranslations.put(key, value);
+			}
+		});
+		translations.keySet().forEach(key -> {
+			if (!previousTranslations.containsKey(key) && !pendingTranslations.containsKey(key)) {
+				pendingTranslations.put(key, null);
 			}
 		});
+		if (pendingTranslations.size() > pendingCount) {
+			notifyListeners(ResourceEvent.Type.BULK, null, null);
+		}
+	}
+	
+	private void notifyListeners(ResourceEvent.Type type, String key, String newKey) {
+		if (type == ResourceEvent.Type.RESET || pendingType == ResourceEvent.Type.RESET) {
+			// The changes are unknown once any of them is unknown
+			type = ResourceEvent.Type.RESET;
+			key = null;
+			newKey = null;
+		} else if (batchChanged) {
+			// The changes of a batch of more than a single change are coalesced into a bulk change
+			type = ResourceEvent.Type.BULK;
+			key = null;
+			newKey = null;
+		}
+		pendingType = type;
+		pendingKey = key;
+		pendingNewKey = newKey;
+		if (batchDepth > 0) {
+			batchChanged = true;
+			return;
+		}
+		fireResourceChanged();
 	}
 	
-	private void notifyListeners() {
-		listeners.forEach(l -> l.resourceChanged(new ResourceEvent(this)));
+	/**
+	 * Notifies the listeners of the changes made since they have last been notified. Translations which 
+	 * have been changed back to their previous value are left out of the changes of the event.
+	 */
+	private void fireResourceChanged() {
+		ImmutableSortedMap.Builder<String,ResourceEvent.Change> changes = ImmutableSortedMap.naturalOrder();
+		pendingTranslations.forEach((key, oldValue) -> {
+			String newValue = translations.get(key);
+			if (!Objects.equals(oldValue, newValue)) {
+				changes.put(key, new ResourceEvent.Change(oldValue, newValue));
+			}
+		});
+		ResourceEvent event = new ResourceEvent(this, pendingType, pendingKey, pendingNewKey, changes.build());
+		pendingTranslations.clear();
+		pendingType = null;
+		pendingKey = null;
+		pendingNewKey = null;
+		listeners.forEach(l -> l.resourceChanged(event));
 	}
 }
@@ -1,20 +1,97 @@
 package com.ejie.uda.jsonI18nEditor;
 
+import java.util.SortedMap;
+
 /**
  * An event wrapper for a {@link Resource}.
  * 
+ * <p>The event describes the change of the resource by its type and by the translations it has changed,
+ * with their values before and after the change. The changes made by a batch of changes, see
+ * {@link Resource#beginChanges()}, are coalesced into a single event, in which every translation appears
+ * once with its value before the batch and after it. Translations which have been changed back to their
+ * value before are left out. The event has the type of the change when the batch has made a single change,
+ * {@link Type#RESET} when any of its changes is unknown, and {@link Type#BULK} otherwise. The translations replaced when a resource is read
+ * again are described by a single event of type {@link Type#BULK} as well, unless they can not be compared
+ * without reading every value, see {@link Type#RESET}.</p>
+ * 
  * @author Jacob
  */
 public class ResourceEvent {
 	private final Resource resource;
+	private final Type type;
+	private final String key;
+	private final String newKey;
+	private final SortedMap<String,Change> changes;
+	
+	/**
+	 * The types of change of a resource.
+	 */
+	public enum Type {
+		/** A translation has been stored, see {@link Resource#storeTranslation(String, String)}. */
+		STORE,
+		/** A translation has been removed, see {@link Resource#removeTranslation(String)}. */
+		REMOVE,
+		/** A translation and its child keys have been renamed, see {@link Resource#renameTranslation(String, String)}. */
+		RENAME,
+		/** A translation and its child keys have been duplicated, see {@link Resource#duplicateTranslation(String, String)}. */
+		DUPLICATE,
+		/** Any number of changes have been made as a batch, or the translations have been read again. */
+		BULK,
+		/** Any translation may have changed, the changes are unknown. */
+		RESET
+	}
 	
 	/**
-	 * Creates an event object for a {@link Resource}.
+	 * The change of a single translation.
+	 */
+	public static class Change {
+		private final String oldValue;
+		private final String newValue;
+		
+		public Change(String oldValue, String newValue) {
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+		
+		/**
+		 * Gets the value of the translation before the change.
+		 * 
+		 * @return 	the value, or {@code null} if the translation has been added.
+		 */
+		public String getOldValue() {
+			return oldValue;
+		}
+		
+		/**
+		 * Gets the value of the translation after the change.
+		 * 
+		 * @return 	the value, or {@code null} if the translation has been removed.
+		 */
+		public String getNewValue() {
+			return newValue;
+		}
+		
+		@Override
+		public String toString() {
+			return oldValue + " -> " + newValue;
+		}
+	}
+	
+	/**
+	 * Creates an event object for a change of a {@link Resource}.
 	 * 
 	 * @param 	resource the resource.
+	 * @param 	type the type of the change.
+	 * @param 	key the key the change has been made to, or {@code null} for a {@link Type#BULK} or {@link Type#RESET} change.
+	 * @param 	newKey the key a translation has been renamed or duplicated to, or {@code null}.
+	 * @param 	changes the changed translations by key.
 	 */
-	public ResourceEvent(Resource resource) {
+	public ResourceEvent(Resource resource, Type type, String key, String newKey, SortedMap<String,Change> changes) {
 		this.resource = resource;
+		this.type = type;
+		this.key = key;
+		this.newKey = newKey;
+		this.changes = changes;
 	}
 	
 	/**
@@ -25,4 +102,41 @@ public class ResourceEvent {
 	public Resource getResource() {
 		return resource;
 	}
+	
+	/**
+	 * Gets the type of the change.
+	 * 
+	 * @return 	the type.
+	 */
+	public Type getType() {
+		return type;
+	}
+	
+	/**
+	 * Gets the key the change has been made to, like the key of the translation stored or renamed.
+	 * 
+	 * @return 	the key, or {@code null} for a {@link Type#BULK} or {@link Type#RESET} change.
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * Gets the key a translation has been renamed or duplicated to.
+	 * 
+	 * @return 	the new key, or {@code null} for any other type of change.
+	 */
+	public String getNewKey() {
+		return newKey;
+	}
+	
+	/**
+	 * Gets the translations changed, including the child and parent keys which have been removed
+	 * along with the change.
+	 * 
+	 * @return 	the immutable map of the changes by key, which is empty for a {@link Type#RESET} change.
+	 */
+	public SortedMap<String,Change> getChanges() {
+		return changes;
+	}
 }
@@ -1,12 +1,12 @@
 package com.ejie.uda.jsonI18nEditor;
 
-import java.util.Enumeration;
 import java.util.List;
 
 import javax.swing.tree.DefaultTreeModel;
 
 import com.ejie.uda.jsonI18nEditor.util.MessageBundle;
 import com.ejie.uda.jsonI18nEditor.util.TranslationKeys;
+import com.google.common.collect.Lists;
 
 /**
  * This class represents a model for the translation tree.
@@ -24,17 +24,29 @@ public class TranslationTreeModel extends DefaultTreeModel {
 		super(new TranslationTreeNode(MessageBundle.get("translations.model.name"), keys));
 	}
 	
-	@SuppressWarnings("unchecked")
+	/**
+	 * Gets the node of the given key. The tree is patched in place when resources are reloaded, which looks up 
+	 * the node of every changed key, so the node is found by walking down the parts of the key instead of 
+	 * comparing the key of every node of the tree.
+	 * 
+	 * @param 	key the key of the node.
+	 * @return 	the node, or {@code null} if there is no node with the given key.
+	 */
 	public TranslationTreeNode getNodeByKey(String key) {
 		TranslationTreeNode node = (TranslationTreeNode) getRoot();
-		Enumeration<TranslationTreeNode> e = node.depthFirstEnumeration();
-	    while (e.hasMoreElements()) {
-	    	TranslationTreeNode n = e.nextElement();
-	        if (n.getKey().equals(key)) {
-	            return n;
-	        }
-	    }
-	    return null;
+		if (key == null) {
+			return null;
+		}
+		if (node == null || key.isEmpty()) {
+			return node;
+		}
+		for (String part : TranslationKeys.parts(key)) {
+			node = node.getChild(part);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node.getKey().equals(key) ? node : null;
 	}
 	
 	public TranslationTreeNode getClosestParentNodeByKey(String key) {
@@ -56,6 +68,43 @@ public class TranslationTreeModel extends DefaultTreeModel {
 		insertNodeInto(newChild, parent, getNewChildIndex(newChild, parent));
 	}
 	
+	/**
+	 * Inserts the nodes for the given key, unless they already exist. Existing nodes are left untouched,
+	 * so the state of the tree, like expanded or selected nodes, is kept.
+	 * 
+	 * @param 	key the key of the leaf node to insert.
+	 */
+	public void insertNodeByKey(String key) {
+		if (getNodeByKey(key) != null) {
+			return;
+		}
+		TranslationTreeNode parent = getClosestParentNodeByKey(key);
+		String newKey = TranslationKeys.childKey(key, parent.getKey());
+		String restKey = TranslationKeys.create(TranslationKeys.subParts(newKey, 1));
+		List<String> keys = restKey.isEmpty() ? Lists.newArrayList() : Lists.newArrayList(restKey);
+		insertNodeInto(new TranslationTreeNode(TranslationKeys.firstPart(newKey), keys), parent);
+	}
+	
+	/**
+	 * Removes the leaf node of the given key, together with any parent nodes which are left without children.
+	 * Nothing will be removed when the node has child nodes.
+	 * 
+	 * @param 	key the key of the leaf node to remove.
+	 */
+	public void removeNodeByKey(String key) {
+		TranslationTreeNode node = getNodeByKey(key);
+		if (node == null || node.isRoot() || !node.isLeaf()) {
+			return;
+		}
+		TranslationTreeNode parent = (TranslationTreeNode) node.getParent();
+		removeNodeFromParent(node);
+		while (!parent.isRoot() && parent.getChildCount() == 0) {
+			node = parent;
+			parent = (TranslationTreeNode) node.getParent();
+			removeNodeFromParent(node);
+		}
+	}
+	
 	public void insertDescendantsInto(TranslationTreeNode source, TranslationTreeNode target) {
 		source.getChildren().forEach(child -> {
 			TranslationTreeNode existing = target.getChild(child.getName());
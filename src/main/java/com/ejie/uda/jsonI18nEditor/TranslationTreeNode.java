@@ -9,6 +9,7 @@ import java.util.stream.Collectors;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
 
+import com.ejie.uda.jsonI18nEditor.util.KeyPool;
 import com.ejie.uda.jsonI18nEditor.util.TranslationKeys;
 
 /**
@@ -22,7 +23,7 @@ public class TranslationTreeNode extends DefaultMutableTreeNode {
 	
 	public TranslationTreeNode(String name, List<String> keys) {
 		super();
-		this.name = name;
+		this.name = KeyPool.shared().intern(name);
 		TranslationKeys.uniqueRootKeys(keys).forEach(rootKey -> {
 			List<String> subKeys = TranslationKeys.extractChildKeys(keys, rootKey);
 			add(new TranslationTreeNode(rootKey, subKeys));
@@ -34,7 +35,7 @@ public class TranslationTreeNode extends DefaultMutableTreeNode {
 	}
 	
 	public void setName(String name) {
-		this.name = name;
+		this.name = KeyPool.shared().intern(name);
 	}
 	
 	public boolean isEditable() {
@@ -0,0 +1,552 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * This class stores the translations of all locales of a bundle by column, like a table with a row
+ * for every translation key and a column for every locale.
+ * 
+ * <p>The locales of a bundle mostly have the same translation keys, so the keys are stored only once for
+ * the whole bundle, in a sorted dictionary which gives every key an ordinal. Every locale stores its
+ * values in an array indexed by the ordinal of their key, instead of in a sorted map of its own.
+ * A key is removed from the dictionary once none of the locales has a value for it anymore, after which
+ * its ordinal is reused.</p>
+ * 
+ * <p>A column is accessed as a sorted map of translations, see {@link #addColumn(Map)}. The store is
+ * not thread safe, it is used from the event dispatch thread just like the resources. The dictionary
+ * and the values are persistent structures though, so an immutable version of a column can be taken
+ * in constant time and read by any thread, see {@link SnapshotSortedMap}.</p>
+ * 
+ * <p>A store can hold the values in compact form, see {@link #BundleStore(boolean)}. The values of every
+ * column are then packed into large byte arrays as ISO-8859-1 or UTF-8, which takes a fraction of the
+ * memory of the strings, at the cost of decoding a value whenever it is read.</p>
+ */
+public class BundleStore {
+	private final static int BITS = 5;
+	private final static int WIDTH = 1 << BITS;
+	private final static int MASK = WIDTH - 1;
+	private final static long COMPACT_THRESHOLD = 1 << 16;
+	private final boolean compactValues;
+	private final VersionedSortedMap<String,Integer> ordinals = new VersionedSortedMap<>();
+	private final List<Column> columns = Lists.newArrayList();
+	private int[] freeOrdinals = new int[16];
+	private int freeOrdinalCount;
+	private int nextOrdinal;
+	
+	/**
+	 * Creates a new store which holds the values as strings.
+	 */
+	public BundleStore() {
+		this(false);
+	}
+	
+	/**
+	 * Creates a new store.
+	 * 
+	 * @param 	compactValues whether to pack the values of every column into a byte arena, which are 
+	 * 			decoded whenever they are read, instead of holding them as strings.
+	 */
+	public BundleStore(boolean compactValues) {
+		this.compactValues = compactValues;
+	}
+	
+	/**
+	 * Adds a column to the store containing the given translations.
+	 * 
+	 * @param 	translations the translations of the column.
+	 * @return 	the translations of the column, which are stored in the store.
+	 */
+	public SnapshotSortedMap<String,String> addColumn(Map<String,String> translations) {
+		Column column = new Column(compactValues);
+		columns.add(column);
+		ColumnMap map = new ColumnMap(column, ordinals);
+		map.putAll(translations);
+		return map;
+	}
+	
+	/**
+	 * Removes a column added by {@link #addColumn(Map)} from the store. The keys which are used
+	 * by the column only are removed from the store as well.
+	 * 
+	 * @param 	translations the translations of the column.
+	 * @return 	a copy of the translations of the column, which are no longer stored in the store.
+	 */
+	public SnapshotSortedMap<String,String> removeColumn(SortedMap<String,String> translations) {
+		Preconditions.checkArgument(translations instanceof ColumnMap && ((ColumnMap) translations).store() == this);
+		SnapshotSortedMap<String,String> result = new VersionedSortedMap<>(translations);
+		translations.clear();
+		columns.remove(((ColumnMap) translations).column);
+		return result;
+	}
+	
+	/**
+	 * Gets the number of columns of the store.
+	 * 
+	 * @return 	the number of columns.
+	 */
+	public int getColumnCount() {
+		return columns.size();
+	}
+	
+	/**
+	 * Gets the number of distinct keys of all columns of the store.
+	 * 
+	 * @return 	the number of keys.
+	 */
+	public int getKeyCount() {
+		return ordinals.size();
+	}
+	
+	private int allocateOrdinal() {
+		return freeOrdinalCount > 0 ? freeOrdinals[--freeOrdinalCount] : nextOrdinal++;
+	}
+	
+	private void freeOrdinal(int ordinal) {
+		if (freeOrdinalCount == freeOrdinals.length) {
+			freeOrdinals = Arrays.copyOf(freeOrdinals, freeOrdinalCount * 2);
+		}
+		freeOrdinals[freeOrdinalCount++] = ordinal;
+	}
+	
+	private boolean isUsed(int ordinal) {
+		for (Column column : columns) {
+			if (column.get(ordinal) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * The values of a single locale, indexed by the ordinal of their key. The values are held in a trie
+	 * of nodes with {@value #WIDTH} slots each. The nodes created since the last version was taken are
+	 * changed in place, all others are copied first.
+	 * 
+	 * <p>The leaves of the trie of a compact column hold references to the values in an arena instead of
+	 * the values themselves. The arena is replaced by one holding the values in use only, once more than
+	 * half of it holds values which have been replaced or removed.</p>
+	 */
+	private static class Column {
+		private final boolean compact;
+		private Object edit = new Object();
+		private Node root;
+		private int shift;
+		private int size;
+		private ValueArena arena;
+		private long unusedBytes;
+		
+		private Column(boolean compact) {
+			this.compact = compact;
+			this.root = new Node(edit, compact);
+			this.arena = compact ? new ValueArena() : null;
+		}
+		
+		private String get(int ordinal) {
+			return get(root, shift, arena == null ? null : arena.getChunks(), ordinal);
+		}
+		
+		private String set(int ordinal, String value) {
+			String previous = get(ordinal);
+			if (previous == null ? value == null : previous.equals(value)) {
+				return previous;
+			}
+			while ((ordinal >>> shift) >= WIDTH) {
+				Node node = new Node(edit, false);
+				node.slots[0] = root;
+				root = node;
+				shift += BITS;
+			}
+			if (compact) {
+				int ref = ref(root, shift, ordinal);
+				if (ref != 0) {
+					unusedBytes += arena.length(ref);
+				}
+			}
+			root = set(root, shift, ordinal, value);
+			if (previous == null) {
+				size++;
+			} else if (value == null) {
+				size--;
+			}
+			if (compact && unusedBytes > COMPACT_THRESHOLD && unusedBytes > arena.getSize() / 2) {
+				compactArena();
+			}
+			return previous;
+		}
+		
+		private Values snapshot() {
+			edit = new Object();
+			return new Values(root, shift, arena == null ? null : arena.getChunks());
+		}
+		
+		private Node set(Node node, int level, int ordinal, String value) {
+			Node result = node == null ? new Node(edit, compact && level == 0) : node.edit == edit ? node : new Node(node, edit);
+			int index = (ordinal >>> level) & MASK;
+			if (level > 0) {
+				result.slots[index] = set((Node) result.slots[index], level - BITS, ordinal, value);
+			} else if (compact) {
+				result.refs[index] = value == null ? 0 : arena.add(value);
+			} else {
+				result.slots[index] = value;
+			}
+			return result;
+		}
+		
+		private void compactArena() {
+			ValueArena compacted = new ValueArena();
+			edit = new Object();
+			root = copy(root, shift, compacted);
+			arena = compacted;
+			unusedBytes = 0;
+		}
+		
+		private Node copy(Node node, int level, ValueArena compacted) {
+			Node result = new Node(node, edit);
+			for (int i = 0; i < WIDTH; i++) {
+				if (level == 0) {
+					if (result.refs[i] != 0) {
+						result.refs[i] = compacted.add(arena, result.refs[i]);
+					}
+				} else if (result.slots[i] != null) {
+					result.slots[i] = copy((Node) result.slots[i], level - BITS, compacted);
+				}
+			}
+			return result;
+		}
+		
+		private static Node leaf(Node node, int shift, int ordinal) {
+			if ((ordinal >>> shift) >= WIDTH) {
+				return null;
+			}
+			for (int level = shift; level > 0 && node != null; level -= BITS) {
+				node = (Node) node.slots[(ordinal >>> level) & MASK];
+			}
+			return node;
+		}
+		
+		private static int ref(Node root, int shift, int ordinal) {
+			Node leaf = leaf(root, shift, ordinal);
+			return leaf == null ? 0 : leaf.refs[ordinal & MASK];
+		}
+		
+		private static String get(Node root, int shift, byte[][] chunks, int ordinal) {
+			Node leaf = leaf(root, shift, ordinal);
+			if (leaf == null) {
+				return null;
+			}
+			if (leaf.refs == null) {
+				return (String) leaf.slots[ordinal & MASK];
+			}
+			int ref = leaf.refs[ordinal & MASK];
+			return ref == 0 ? null : ValueArena.get(chunks, ref);
+		}
+	}
+	
+	/**
+	 * A node of the trie of a column. The leaves of a compact column hold references instead of values.
+	 */
+	private static class Node {
+		private final Object edit;
+		private final Object[] slots;
+		private final int[] refs;
+		
+		private Node(Object edit, boolean leafOfRefs) {
+			this.edit = edit;
+			this.slots = leafOfRefs ? null : new Object[WIDTH];
+			this.refs = leafOfRefs ? new int[WIDTH] : null;
+		}
+		
+		private Node(Node node, Object edit) {
+			this.edit = edit;
+			this.slots = node.slots == null ? null : node.slots.clone();
+			this.refs = node.refs == null ? null : node.refs.clone();
+		}
+	}
+	
+	/**
+	 * An immutable version of the values of a column.
+	 */
+	private static class Values {
+		private final Node root;
+		private final int shift;
+		private final byte[][] chunks;
+		
+		private Values(Node root, int shift, byte[][] chunks) {
+			this.root = root;
+			this.shift = shift;
+			this.chunks = chunks;
+		}
+		
+		private String get(int ordinal) {
+			return Column.get(root, shift, chunks, ordinal);
+		}
+	}
+	
+	/**
+	 * A sorted map view of the values of a column over the keys of a range of a dictionary.
+	 */
+	private abstract static class AbstractColumnMap extends AbstractMap<String,String> implements SortedMap<String,String> {
+		protected final SortedMap<String,Integer> range;
+		private Set<Map.Entry<String,String>> entrySet;
+		
+		protected AbstractColumnMap(SortedMap<String,Integer> range) {
+			this.range = range;
+		}
+		
+		protected abstract String value(int ordinal);
+		
+		protected abstract AbstractColumnMap view(SortedMap<String,Integer> range);
+		
+		@Override
+		public String get(Object key) {
+			Integer ordinal = range.get(key);
+			return ordinal == null ? null : value(ordinal);
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+		
+		@Override
+		public int size() {
+			int size = 0;
+			for (Integer ordinal : range.values()) {
+				if (value(ordinal) != null) {
+					size++;
+				}
+			}
+			return size;
+		}
+		
+		@Override
+		public boolean isEmpty() {
+			return !entrySet().iterator().hasNext();
+		}
+		
+		@Override
+		public SortedSet<String> keySet() {
+			return new SortedKeySet<>(this);
+		}
+		
+		@Override
+		public Set<Map.Entry<String,String>> entrySet() {
+			if (entrySet == null) {
+				entrySet = new AbstractSet<Map.Entry<String,String>>() {
+					@Override
+					public Iterator<Map.Entry<String,String>> iterator() {
+						return new EntryIterator();
+					}
+					
+					@Override
+					public int size() {
+						return AbstractColumnMap.this.size();
+					}
+				};
+			}
+			return entrySet;
+		}
+		
+		@Override
+		public Comparator<? super String> comparator() {
+			return null;
+		}
+		
+		@Override
+		public SortedMap<String,String> subMap(String fromKey, String toKey) {
+			return view(range.subMap(fromKey, toKey));
+		}
+		
+		@Override
+		public SortedMap<String,String> headMap(String toKey) {
+			return view(range.headMap(toKey));
+		}
+		
+		@Override
+		public SortedMap<String,String> tailMap(String fromKey) {
+			return view(range.tailMap(fromKey));
+		}
+		
+		@Override
+		public String firstKey() {
+			Iterator<Map.Entry<String,String>> iterator = entrySet().iterator();
+			if (!iterator.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return iterator.next().getKey();
+		}
+		
+		@Override
+		public String lastKey() {
+			String lastKey = null;
+			for (Map.Entry<String,Integer> entry : range.entrySet()) {
+				if (value(entry.getValue()) != null) {
+					lastKey = entry.getKey();
+				}
+			}
+			if (lastKey == null) {
+				throw new NoSuchElementException();
+			}
+			return lastKey;
+		}
+		
+		/**
+		 * Iterates the keys of the range which have a value in the column. The keys of a column map are
+		 * iterated from a version of the dictionary, so the entries can be removed while iterating.
+		 */
+		private class EntryIterator implements Iterator<Map.Entry<String,String>> {
+			private final Iterator<Map.Entry<String,Integer>> iterator = range.entrySet().iterator();
+			private Map.Entry<String,String> next;
+			private String lastKey;
+			
+			@Override
+			public boolean hasNext() {
+				while (next == null && iterator.hasNext()) {
+					Map.Entry<String,Integer> entry = iterator.next();
+					String value = value(entry.getValue());
+					if (value != null) {
+						next = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value);
+					}
+				}
+				return next != null;
+			}
+			
+			@Override
+			public Map.Entry<String,String> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Map.Entry<String,String> result = next;
+				next = null;
+				lastKey = result.getKey();
+				return result;
+			}
+			
+			@Override
+			public void remove() {
+				Preconditions.checkState(lastKey != null);
+				AbstractColumnMap.this.remove(lastKey);
+				lastKey = null;
+			}
+		}
+	}
+	
+	/**
+	 * A sorted map view of a column, over the keys of a range of the dictionary.
+	 */
+	private class ColumnMap extends AbstractColumnMap implements SnapshotSortedMap<String,String> {
+		private final Column column;
+		
+		private ColumnMap(Column column, VersionedSortedMap<String,Integer> range) {
+			super(range);
+			this.column = column;
+		}
+		
+		private BundleStore store() {
+			return BundleStore.this;
+		}
+		
+		@Override
+		protected String value(int ordinal) {
+			return column.get(ordinal);
+		}
+		
+		@Override
+		protected AbstractColumnMap view(SortedMap<String,Integer> range) {
+			return new ColumnMap(column, (VersionedSortedMap<String,Integer>) range);
+		}
+		
+		@Override
+		public String put(String key, String value) {
+			Preconditions.checkNotNull(value);
+			Integer ordinal = range.get(key);
+			if (ordinal == null) {
+				ordinal = allocateOrdinal();
+				try {
+					range.put(key, ordinal);
+				} catch (IllegalArgumentException e) {
+					freeOrdinal(ordinal);
+					throw e;
+				}
+			}
+			return column.set(ordinal, value);
+		}
+		
+		@Override
+		public String remove(Object key) {
+			Integer ordinal = range.get(key);
+			if (ordinal == null) {
+				return null;
+			}
+			String previous = column.set(ordinal, null);
+			if (previous != null && !isUsed(ordinal)) {
+				range.remove(key);
+				freeOrdinal(ordinal);
+			}
+			return previous;
+		}
+		
+		@Override
+		public int size() {
+			return range == ordinals ? column.size : super.size();
+		}
+		
+		@Override
+		public SortedMap<String,String> snapshot() {
+			return new ColumnVersion(((VersionedSortedMap<String,Integer>) range).snapshot(), column.snapshot(),
+					range == ordinals ? column.size : -1);
+		}
+	}
+	
+	/**
+	 * An immutable version of a column map.
+	 */
+	private static class ColumnVersion extends AbstractColumnMap {
+		private final Values values;
+		private final int size;
+		
+		private ColumnVersion(SortedMap<String,Integer> range, Values values, int size) {
+			super(range);
+			this.values = values;
+			this.size = size;
+		}
+		
+		@Override
+		protected String value(int ordinal) {
+			return values.get(ordinal);
+		}
+		
+		@Override
+		protected AbstractColumnMap view(SortedMap<String,Integer> range) {
+			return new ColumnVersion(range, values, -1);
+		}
+		
+		@Override
+		public int size() {
+			return size == -1 ? super.size() : size;
+		}
+		
+		@Override
+		public String remove(Object key) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void clear() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
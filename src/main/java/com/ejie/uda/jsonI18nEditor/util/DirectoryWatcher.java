@@ -0,0 +1,110 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+/**
+ * This class represents a watcher which notifies a listener about files being created, modified or
+ * deleted in a directory.
+ * 
+ * <p>Tools often write a file in several steps, or write several files at once, so events are not
+ * reported one by one. The changed files are collected until no new event has been received for the
+ * configured delay, and are then reported to the listener at once. The listener is called on the
+ * thread of the watcher.</p>
+ */
+public class DirectoryWatcher implements Closeable {
+	private final static int MAX_DELAY_FACTOR = 10;
+	private final Path dir;
+	private final long delay;
+	private final Listener listener;
+	private final WatchService watchService;
+	private final Thread thread;
+	
+	/**
+	 * Defines a listener which is called with the files changed in the watched directory.
+	 */
+	public interface Listener {
+		void filesChanged(Set<Path> paths);
+	}
+	
+	/**
+	 * Creates a new watcher and starts watching the given directory.
+	 * 
+	 * @param 	dir the directory to watch.
+	 * @param 	delay the time in milliseconds without any new events after which the changed files are reported.
+	 * @param 	listener the listener to report the changed files to.
+	 * @throws 	IOException if an I/O error occurs registering the directory.
+	 */
+	public DirectoryWatcher(Path dir, long delay, Listener listener) throws IOException {
+		this.dir = dir;
+		this.delay = delay;
+		this.listener = listener;
+		this.watchService = dir.getFileSystem().newWatchService();
+		dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		this.thread = new Thread(this::run, "directory-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Gets the watched directory.
+	 * 
+	 * @return 	the directory.
+	 */
+	public Path getDir() {
+		return dir;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		thread.interrupt();
+		watchService.close();
+	}
+	
+	private void run() {
+		Set<Path> changedPaths = Sets.newLinkedHashSet();
+		long firstEventTime = 0;
+		try {
+			boolean valid = true;
+			while (valid) {
+				WatchKey key = changedPaths.isEmpty() ? watchService.take() : watchService.poll(delay, TimeUnit.MILLISECONDS);
+				if (key != null) {
+					if (changedPaths.isEmpty()) {
+						firstEventTime = System.currentTimeMillis();
+					}
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+							// Events have been lost, so anything in the directory might have been changed
+							changedPaths.add(dir);
+						} else {
+							changedPaths.add(dir.resolve((Path) event.context()));
+						}
+					}
+					// The key is no longer valid when the directory has been deleted
+					valid = key.reset();
+				}
+				// Report the changes once things have calmed down, or when a continuous stream of
+				// events has been postponing them for too long
+				boolean expired = System.currentTimeMillis() - firstEventTime >= delay * MAX_DELAY_FACTOR;
+				if (!changedPaths.isEmpty() && (key == null || expired || !valid)) {
+					listener.filesChanged(ImmutableSet.copyOf(changedPaths));
+					changedPaths.clear();
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// The watcher has been closed
+		}
+	}
+}
@@ -0,0 +1,372 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+
+/**
+ * This class represents an append-only journal of the edits made to the resources of a bundle.
+ * 
+ * <p>Every edit is appended to the journal file as a small record, so unsaved edits survive a crash
+ * of the editor at the cost of a few bytes per edit. A record is framed by its length and a checksum,
+ * a record which has only partially been written when the editor was killed is detected and ignored
+ * when the journal is read.</p>
+ * 
+ * <p>The journal starts with a {@link Operation#BASE} record for every resource, holding the hash of
+ * the resource file the edits apply to. Once the edited resources have been saved, the journal is
+ * compacted by replacing the saved edits by new base records.</p>
+ */
+public class EditJournal implements Closeable {
+	private final static int MAGIC = 0x494A524E;
+	private final static int VERSION = 1;
+	private final static int HEADER_SIZE = 8;
+	private final static int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+	private final static String JOURNAL_EXTENSION = ".journal";
+	private final static Charset ENCODING = Charset.forName("UTF-8");
+	private final Path path;
+	private FileChannel channel;
+	
+	/**
+	 * Defines the operations which can be recorded in the journal.
+	 */
+	public enum Operation {
+		BASE, STORE, REMOVE, RENAME, DUPLICATE
+	}
+	
+	/**
+	 * This class represents a single record of the journal.
+	 * 
+	 * <p>The resource of a record is the file name of the resource it applies to, an empty resource
+	 * name means the record applies to all resources of the bundle.</p>
+	 */
+	public final static class Record {
+		private final Operation operation;
+		private final String resource;
+		private final String key;
+		private final String value;
+		
+		/**
+		 * Creates a new record.
+		 * 
+		 * @param 	operation the operation.
+		 * @param 	resource the file name of the resource, or an empty string for all resources.
+		 * @param 	key the key, or the hash of the resource file for a base record.
+		 * @param 	value the value, the new key when renaming or duplicating, or an empty string.
+		 */
+		public Record(Operation operation, String resource, String key, String value) {
+			this.operation = operation;
+			this.resource = resource;
+			this.key = key;
+			this.value = value;
+		}
+		
+		public Operation getOperation() {
+			return operation;
+		}
+		
+		public String getResource() {
+			return resource;
+		}
+		
+		public String getKey() {
+			return key;
+		}
+		
+		public String getValue() {
+			return value;
+		}
+		
+		/**
+		 * Checks whether the record applies to the resource with the given file name.
+		 * 
+		 * @param 	fileName the file name of the resource.
+		 * @return 	whether the record applies to the resource.
+		 */
+		public boolean appliesTo(String fileName) {
+			return resource.isEmpty() || resource.equals(fileName);
+		}
+		
+		/**
+		 * Applies the recorded edit to the given resource, if the record applies to it.
+		 * 
+		 * @param 	target the resource to apply the edit to.
+		 */
+		public void applyTo(Resource target) {
+			if (!appliesTo(target.getPath().getFileName().toString())) {
+				return;
+			}
+			switch (operation) {
+				case STORE:
+					target.storeTranslation(key, value);
+					break;
+				case REMOVE:
+					target.removeTranslation(key);
+					break;
+				case RENAME:
+					target.renameTranslation(key, value);
+					break;
+				case DUPLICATE:
+					target.duplicateTranslation(key, value);
+					break;
+				default:
+					break;
+			}
+		}
+	}
+	
+	private EditJournal(Path path, FileChannel channel) {
+		this.path = path;
+		this.channel = channel;
+	}
+	
+	/**
+	 * Gets the path of the journal of a bundle.
+	 * 
+	 * @param 	dir the directory to store journals in.
+	 * @param 	resourcesDir the directory of the resources.
+	 * @param 	bundle the name of the bundle, or {@code null} for all resources of the directory.
+	 * @return 	the path of the journal.
+	 */
+	public static Path getPath(Path dir, Path resourcesDir, String bundle) {
+		String id = resourcesDir.toAbsolutePath().toString() + (bundle == null ? "" : "|" + bundle);
+		return dir.resolve(Hashing.murmur3_128().hashString(id, ENCODING).toString() + JOURNAL_EXTENSION);
+	}
+	
+	/**
+	 * Opens a journal for appending records. An existing journal is kept, any partially written
+	 * record at the end of it is cut off.
+	 * 
+	 * @param 	path the path of the journal.
+	 * @return 	the journal.
+	 * @throws 	IOException if an I/O error occurs opening the journal.
+	 */
+	public static EditJournal open(Path path) throws IOException {
+		Files.createDirectories(path.getParent());
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long end = channel.size() < HEADER_SIZE ? 0 : readRecords(new BufferedInputStream(Channels.newInputStream(channel)), null);
+			if (end == 0) {
+				channel.truncate(0);
+				channel.write(ByteBuffer.wrap(header()), 0);
+				end = HEADER_SIZE;
+			} else {
+				channel.truncate(end);
+			}
+			channel.position(end);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return new EditJournal(path, channel);
+	}
+	
+	/**
+	 * Reads all complete records of a journal.
+	 * 
+	 * @param 	path the path of the journal.
+	 * @return 	the records, or an empty list if the journal does not exist.
+	 * @throws 	IOException if an I/O error occurs reading the journal.
+	 */
+	public static List<Record> read(Path path) throws IOException {
+		List<Record> records = Lists.newArrayList();
+		try (InputStream in = Files.newInputStream(path)) {
+			readRecords(in, records);
+		} catch (NoSuchFileException e) {
+			return Collections.emptyList();
+		}
+		return records;
+	}
+	
+	/**
+	 * Appends a record to the journal. The record is handed to the operating system right away,
+	 * so it survives a crash of the editor.
+	 * 
+	 * @param 	record the record to append.
+	 * @throws 	IOException if an I/O error occurs writing the record.
+	 */
+	public void append(Record record) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(frame(record));
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * Gets the current end of the journal, which can be used to compact the journal up to this point
+	 * later on.
+	 * 
+	 * @return 	the position.
+	 * @throws 	IOException if an I/O error occurs.
+	 */
+	public long position() throws IOException {
+		return channel.position();
+	}
+	
+	/**
+	 * Compacts the journal by replacing all records before the given position by the given base records.
+	 * The records appended after the given position are kept. The journal is replaced atomically, so a
+	 * crash while compacting leaves either the old or the new journal.
+	 * 
+	 * @param 	position the position up to which the records have been saved.
+	 * @param 	baseRecords the records describing the saved resources.
+	 * @throws 	IOException if an I/O error occurs writing the journal.
+	 */
+	public void compact(long position, List<Record> baseRecords) throws IOException {
+		Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			bytes.write(header());
+			for (Record record : baseRecords) {
+				bytes.write(frame(record));
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			long end = channel.size();
+			long transferred = 0;
+			while (position + transferred < end) {
+				transferred += channel.transferTo(position + transferred, end - position - transferred, out);
+			}
+			out.force(false);
+		}
+		channel.close();
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+	}
+	
+	/**
+	 * Closes the journal and deletes its file, which should be done once all edits have been saved
+	 * or discarded.
+	 * 
+	 * @throws 	IOException if an I/O error occurs deleting the journal.
+	 */
+	public void delete() throws IOException {
+		close();
+		Files.deleteIfExists(path);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Reads the records of a journal into the given list, if any.
+	 * 
+	 * @return 	the position after the last complete record, or zero if the journal is not valid.
+	 */
+	private static long readRecords(InputStream stream, List<Record> records) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return 0;
+			}
+		} catch (EOFException e) {
+			return 0;
+		}
+		long end = HEADER_SIZE;
+		CRC32 crc = new CRC32();
+		while (true) {
+			byte[] payload;
+			try {
+				int length = in.readInt();
+				int checksum = in.readInt();
+				if (length <= 0 || length > MAX_RECORD_SIZE) {
+					break;
+				}
+				payload = new byte[length];
+				in.readFully(payload);
+				crc.reset();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+			} catch (EOFException e) {
+				// The last record was being written when the editor was stopped
+				break;
+			}
+			if (records != null) {
+				try {
+					records.add(decode(payload));
+				} catch (IOException e) {
+					break;
+				}
+			}
+			end += 8 + payload.length;
+		}
+		return end;
+	}
+	
+	private static byte[] header() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		return bytes.toByteArray();
+	}
+	
+	private static byte[] frame(Record record) throws IOException {
+		ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+		DataOutputStream payload = new DataOutputStream(payloadBytes);
+		payload.writeByte(record.operation.ordinal());
+		writeString(payload, record.resource);
+		writeString(payload, record.key);
+		writeString(payload, record.value);
+		byte[] bytes = payloadBytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		ByteArrayOutputStream frameBytes = new ByteArrayOutputStream(bytes.length + 8);
+		DataOutputStream frame = new DataOutputStream(frameBytes);
+		frame.writeInt(bytes.length);
+		frame.writeInt((int) crc.getValue());
+		frame.write(bytes);
+		return frameBytes.toByteArray();
+	}
+	
+	private static Record decode(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		int operation = in.readUnsignedByte();
+		if (operation >= Operation.values().length) {
+			throw new IOException("Unknown journal operation " + operation);
+		}
+		return new Record(Operation.values()[operation], readString(in), readString(in), readString(in));
+	}
+	
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(ENCODING);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, ENCODING);
+	}
+}
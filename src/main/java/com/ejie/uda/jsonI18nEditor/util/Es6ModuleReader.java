@@ -0,0 +1,444 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * This class represents a {@link Reader} which translates an ES6 module exporting a translation object,
+ * like {@code export default { key: 'value' };}, to JSON while it is being read. The module is read in a
+ * single pass and only the token being translated is kept in memory.
+ * 
+ * <p>The module must export an object literal by {@code export default} or {@code module.exports =}.
+ * Within the object literal the following JavaScript syntax is supported besides plain JSON:</p>
+ * 
+ * <ul>
+ * <li>line and block comments.</li>
+ * <li>unquoted and numeric property names.</li>
+ * <li>single quoted strings and template literals without substitutions.</li>
+ * <li>JavaScript escape sequences, like hexadecimal and code point escapes or line continuations.</li>
+ * <li>trailing commas in objects and arrays.</li>
+ * </ul>
+ */
+public class Es6ModuleReader extends Reader {
+	private final static int BUFFER_SIZE = 8192;
+	private final Reader in;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private int line = 1;
+	private final StringBuilder out = new StringBuilder();
+	private int outPosition;
+	private boolean[] objects = new boolean[32];
+	private int depth;
+	private boolean pendingComma;
+	private boolean expectName;
+	private boolean started;
+	private boolean finished;
+	
+	/**
+	 * Creates a new reader.
+	 * 
+	 * @param 	in the reader to read the ES6 module from.
+	 */
+	public Es6ModuleReader(Reader in) {
+		this.in = in;
+	}
+	
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (outPosition == out.length()) {
+			out.setLength(0);
+			outPosition = 0;
+			if (finished) {
+				return -1;
+			}
+			translateNextToken();
+		}
+		int n = Math.min(len, out.length() - outPosition);
+		out.getChars(outPosition, outPosition + n, cbuf, off);
+		outPosition += n;
+		return n;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	private void translateNextToken() throws IOException {
+		int c = skipWhitespaceAndComments();
+		if (!started) {
+			readExport(c);
+			started = true;
+			return;
+		}
+		if (depth == 0) {
+			// Only a semicolon may follow the exported object
+			if (c == ';') {
+				next();
+				c = skipWhitespaceAndComments();
+			}
+			if (c != -1) {
+				throw syntaxError("Unexpected content after the exported object");
+			}
+			finished = true;
+			return;
+		}
+		if (c == -1) {
+			throw syntaxError("Unexpected end of module");
+		}
+		if (c == '}' || c == ']') {
+			next();
+			if ((c == '}') != objects[depth - 1]) {
+				throw syntaxError("Unexpected '" + (char) c + "'");
+			}
+			// A trailing comma is allowed, and simply dropped
+			pendingComma = false;
+			out.append((char) c);
+			depth--;
+			expectName = false;
+			return;
+		}
+		if (c == ',') {
+			next();
+			if (pendingComma) {
+				throw syntaxError("Unexpected ','");
+			}
+			pendingComma = true;
+			expectName = objects[depth - 1];
+			return;
+		}
+		if (c == ':') {
+			next();
+			out.append(':');
+			return;
+		}
+		if (pendingComma) {
+			out.append(',');
+			pendingComma = false;
+		}
+		if (expectName) {
+			readName(c);
+			expectName = false;
+		} else {
+			readValue(c);
+		}
+	}
+	
+	private void readExport(int c) throws IOException {
+		String keyword = readIdentifier(c);
+		if (keyword.equals("export")) {
+			if (!readIdentifier(skipWhitespaceAndComments()).equals("default")) {
+				throw syntaxError("Expected 'export default'");
+			}
+		} else if (keyword.equals("module")) {
+			expect('.');
+			if (!readIdentifier(skipWhitespaceAndComments()).equals("exports")) {
+				throw syntaxError("Expected 'module.exports'");
+			}
+			expect('=');
+		} else {
+			throw syntaxError("Expected 'export default' or 'module.exports'");
+		}
+		c = skipWhitespaceAndComments();
+		if (c != '{') {
+			throw syntaxError("Expected an object literal to be exported");
+		}
+		readValue(c);
+	}
+	
+	private void readName(int c) throws IOException {
+		if (c == '"' || c == '\'' || c == '`') {
+			readString(c);
+		} else if (isIdentifierStart(c) || isDigit(c)) {
+			out.append('"').append(readIdentifier(c)).append('"');
+		} else {
+			throw syntaxError("Expected a property name");
+		}
+	}
+	
+	private void readValue(int c) throws IOException {
+		if (c == '{' || c == '[') {
+			next();
+			if (depth == objects.length) {
+				objects = Arrays.copyOf(objects, depth * 2);
+			}
+			objects[depth++] = c == '{';
+			expectName = c == '{';
+			out.append((char) c);
+		} else if (c == '"' || c == '\'' || c == '`') {
+			readString(c);
+		} else if (isDigit(c) || c == '-' || c == '+' || c == '.') {
+			out.append(readIdentifier(c));
+		} else if (isIdentifierStart(c)) {
+			String literal = readIdentifier(c);
+			if (!literal.equals("true") && !literal.equals("false") && !literal.equals("null")) {
+				throw syntaxError("Unsupported expression '" + literal + "'");
+			}
+			out.append(literal);
+		} else {
+			throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+	
+	/**
+	 * Reads an identifier, keyword or number literal.
+	 */
+	private String readIdentifier(int c) throws IOException {
+		int start = out.length();
+		while (isIdentifierPart(c) || c == '.' || c == '+' || c == '-') {
+			// Signs and dots only belong to a number literal
+			if ((c == '.' || c == '+' || c == '-') && !isNumber(start, c)) {
+				break;
+			}
+			out.append((char) next());
+			c = peek();
+		}
+		if (out.length() == start) {
+			throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+		String identifier = out.substring(start);
+		out.setLength(start);
+		return identifier;
+	}
+	
+	private boolean isNumber(int start, int c) throws IOException {
+		if (out.length() == start) {
+			return c != '.' || isDigit(peekAhead());
+		}
+		char first = out.charAt(start);
+		if (!isDigit(first) && first != '-' && first != '+' && first != '.') {
+			return false;
+		}
+		// A sign is only part of a number at the start or in the exponent
+		char last = out.charAt(out.length() - 1);
+		return c == '.' || last == 'e' || last == 'E';
+	}
+	
+	/**
+	 * Translates a single quoted, double quoted or template string to a JSON string.
+	 */
+	private void readString(int quote) throws IOException {
+		next();
+		out.append('"');
+		while (true) {
+			int c = next();
+			if (c == quote) {
+				break;
+			}
+			switch (c) {
+				case -1:
+					throw syntaxError("Unterminated string");
+				case '\\':
+					readEscape();
+					break;
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\n':
+				case '\r':
+					if (quote != '`') {
+						throw syntaxError("Unterminated string");
+					}
+					appendEscaped(c);
+					break;
+				case '$':
+					if (quote == '`' && peek() == '{') {
+						throw syntaxError("Template literals with substitutions are not supported");
+					}
+					out.append('$');
+					break;
+				default:
+					if (c < 0x20) {
+						appendEscaped(c);
+					} else {
+						out.append((char) c);
+					}
+			}
+		}
+		out.append('"');
+	}
+	
+	private void readEscape() throws IOException {
+		int c = next();
+		switch (c) {
+			case -1:
+				throw syntaxError("Unterminated string");
+			case '\r':
+				// A line continuation is not part of the string
+				if (peek() == '\n') {
+					next();
+				}
+				break;
+			case '\n':
+			case '\u2028':
+			case '\u2029':
+				break;
+			case '"':
+			case '\\':
+			case '/':
+			case 'b':
+			case 'f':
+			case 'n':
+			case 'r':
+			case 't':
+				out.append('\\').append((char) c);
+				break;
+			case 'v':
+				appendEscaped(0x0B);
+				break;
+			case '0':
+				appendEscaped(0);
+				break;
+			case 'x':
+				appendEscaped(readHex(2));
+				break;
+			case 'u':
+				if (peek() == '{') {
+					next();
+					int codePoint = 0;
+					while (peek() != '}') {
+						codePoint = codePoint * 16 + hexDigit(next());
+						if (codePoint > Character.MAX_CODE_POINT) {
+							throw syntaxError("Invalid unicode escape");
+						}
+					}
+					next();
+					for (char ch : Character.toChars(codePoint)) {
+						appendEscaped(ch);
+					}
+				} else {
+					appendEscaped(readHex(4));
+				}
+				break;
+			default:
+				// Any other escaped character stands for the character itself
+				out.append((char) c);
+		}
+	}
+	
+	private int readHex(int digits) throws IOException {
+		int value = 0;
+		for (int i = 0; i < digits; i++) {
+			value = value * 16 + hexDigit(next());
+		}
+		return value;
+	}
+	
+	private int hexDigit(int c) throws IOException {
+		int digit = Character.digit(c, 16);
+		if (c == -1 || digit == -1) {
+			throw syntaxError("Invalid escape sequence");
+		}
+		return digit;
+	}
+	
+	private void appendEscaped(int c) {
+		String hex = Integer.toHexString(c);
+		out.append("\\u");
+		for (int i = hex.length(); i < 4; i++) {
+			out.append('0');
+		}
+		out.append(hex);
+	}
+	
+	private void expect(int expected) throws IOException {
+		if (skipWhitespaceAndComments() != expected) {
+			throw syntaxError("Expected '" + (char) expected + "'");
+		}
+		next();
+	}
+	
+	/**
+	 * Skips any whitespace and comments and returns the next character without consuming it.
+	 */
+	private int skipWhitespaceAndComments() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c == '/' && peekAhead() == '/') {
+				while (c != -1 && c != '\n' && c != '\r') {
+					next();
+					c = peek();
+				}
+			} else if (c == '/' && peekAhead() == '*') {
+				next();
+				next();
+				while (!(peek() == '*' && peekAhead() == '/')) {
+					if (next() == -1) {
+						throw syntaxError("Unterminated comment");
+					}
+				}
+				next();
+				next();
+			} else if (c == '\uFEFF' || (c != -1 && Character.isWhitespace(c)) || c == '\u00A0') {
+				next();
+			} else {
+				return c;
+			}
+		}
+	}
+	
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+	
+	private int peekAhead() throws IOException {
+		if (limit - position < 2 && !fill()) {
+			return -1;
+		}
+		return limit - position < 2 ? -1 : buffer[position + 1];
+	}
+	
+	private int next() throws IOException {
+		int c = peek();
+		if (c != -1) {
+			position++;
+			if (c == '\n') {
+				line++;
+			}
+		}
+		return c;
+	}
+	
+	/**
+	 * Reads more characters into the buffer, keeping the characters not consumed yet.
+	 * 
+	 * @return 	whether any characters have been read.
+	 */
+	private boolean fill() throws IOException {
+		System.arraycopy(buffer, position, buffer, 0, limit - position);
+		limit -= position;
+		position = 0;
+		int n = in.read(buffer, limit, buffer.length - limit);
+		if (n <= 0) {
+			return false;
+		}
+		limit += n;
+		return true;
+	}
+	
+	private MalformedJsonException syntaxError(String message) {
+		return new MalformedJsonException(message + " at line " + line);
+	}
+	
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+	
+	private static boolean isIdentifierStart(int c) {
+		return c != -1 && Character.isJavaIdentifierStart(c);
+	}
+	
+	private static boolean isIdentifierPart(int c) {
+		return c != -1 && Character.isJavaIdentifierPart(c) && !Character.isIdentifierIgnorable(c);
+	}
+}
@@ -160,6 +160,20 @@ public class ExtendedProperties extends Properties {
 		return value == 1;
 	}
 	
+	/**
+	 * See {@link #getBooleanProperty(String)}. This method returns {@code defaultValue} when
+	 * there is no value in the property list with the specified {@code key}.
+	 * 
+	 * @param	key the property key.
+	 * @param	defaultValue the default value to return when there is no value for the specified key
+	 * @return 	the value in this property list with the specified key value or the defaultValue
+	 * 			when there is no value with the specified key value.
+	 */
+	public boolean getBooleanProperty(String key, boolean defaultValue) {
+		Integer value = getIntegerProperty(key, defaultValue ? 1 : 0);
+		return value == 1;
+	}
+	
 	/**
 	 * See {@link #getIntegerProperty(String)}. This method returns {@code defaultValue} when
 	 * there is no value in the property list with the specified {@code key}.
@@ -0,0 +1,131 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * This class represents a {@link JsonWriter} which writes every token to a number of other JSON writers,
+ * so the same content can be written in several formats by a single pass over the content.
+ * 
+ * <p>The formatting is left to the writers written to, which can each have their own indentation.
+ * The fan out writer itself does not write anything.</p>
+ */
+public class FanOutJsonWriter extends JsonWriter {
+	private final List<JsonWriter> writers;
+	
+	/**
+	 * Creates a new writer.
+	 * 
+	 * @param 	writers the writers to write every token to.
+	 */
+	public FanOutJsonWriter(List<JsonWriter> writers) {
+		super(CharStreams.nullWriter());
+		this.writers = ImmutableList.copyOf(writers);
+	}
+	
+	@Override
+	public JsonWriter beginArray() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.beginArray();
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter endArray() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.endArray();
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter beginObject() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.beginObject();
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter endObject() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.endObject();
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.name(name);
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter value(String value) throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.value(value);
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter nullValue() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.nullValue();
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter value(boolean value) throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.value(value);
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter value(double value) throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.value(value);
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter value(long value) throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.value(value);
+		}
+		return this;
+	}
+	
+	@Override
+	public JsonWriter value(Number value) throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.value(value);
+		}
+		return this;
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.flush();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		for (JsonWriter writer : writers) {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.util.Arrays;
+
+/**
+ * This class builds translation keys while walking through nested JSON content, without creating
+ * any intermediate objects for the parts of the key.
+ * 
+ * <p>The current key is kept in a single growable character buffer, together with a stack of the
+ * offsets at which each part of the key starts. Entering an object member or an array element pushes
+ * a part, leaving it pops the part again. A {@code String} is only created when the key of a value
+ * is requested.</p>
+ * 
+ * <p>The keys are the same as the keys created by {@link TranslationKeys#create(String...)} for object
+ * members, array elements are keyed by their index as {@code key.[index]}.</p>
+ */
+public final class KeyPathBuilder {
+	private final static char[] NULL_KEY = "null".toCharArray();
+	private char[] chars = new char[128];
+	private int length;
+	private int[] offsets = new int[16];
+	private int depth;
+	
+	/**
+	 * Pushes the name of an object member as the next part of the key.
+	 * An empty name does not change the key.
+	 * 
+	 * @param 	name the name of the member.
+	 */
+	public void push(String name) {
+		pushOffset();
+		int nameLength = name.length();
+		if (nameLength == 0) {
+			return;
+		}
+		if (length > 0) {
+			ensureCapacity(length + nameLength + 1);
+			chars[length++] = '.';
+		} else {
+			ensureCapacity(nameLength);
+		}
+		name.getChars(0, nameLength, chars, length);
+		length += nameLength;
+	}
+	
+	/**
+	 * Pushes the index of an array element as the next part of the key, without any padding.
+	 * 
+	 * @param 	index the index of the element.
+	 */
+	public void pushIndex(int index) {
+		boolean root = depth == 0;
+		pushOffset();
+		int digits = digits(index);
+		ensureCapacity(length + NULL_KEY.length + digits + 3);
+		if (root) {
+			// An array at the root of the content has no key at all
+			System.arraycopy(NULL_KEY, 0, chars, length, NULL_KEY.length);
+			length += NULL_KEY.length;
+		}
+		chars[length++] = '.';
+		chars[length++] = '[';
+		for (int i = length + digits - 1; i >= length; i--) {
+			chars[i] = (char) ('0' + index % 10);
+			index /= 10;
+		}
+		length += digits;
+		chars[length++] = ']';
+	}
+	
+	/**
+	 * Removes the last part of the key.
+	 */
+	public void pop() {
+		length = offsets[--depth];
+	}
+	
+	/**
+	 * Gets the number of parts of the key.
+	 * 
+	 * @return 	the number of parts.
+	 */
+	public int depth() {
+		return depth;
+	}
+	
+	/**
+	 * Gets the length of the current key.
+	 * 
+	 * @return 	the length of the key.
+	 */
+	public int length() {
+		return length;
+	}
+	
+	/**
+	 * Gets the offset in the key of the first digit of the index of an array element, which will be
+	 * pushed next by {@link #pushIndex(int)}.
+	 * 
+	 * @return 	the offset.
+	 */
+	public int nextIndexOffset() {
+		return depth == 0 ? NULL_KEY.length + 2 : length + 2;
+	}
+	
+	@Override
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+	
+	/**
+	 * Gets the current key from the given pool, so a {@code String} is only created when the pool 
+	 * does not contain the key yet.
+	 * 
+	 * @param 	pool the pool.
+	 * @return 	the key of the pool.
+	 */
+	public String toString(KeyPool pool) {
+		return pool.intern(chars, 0, length);
+	}
+	
+	/**
+	 * Left pads the index of an array element in a key created while the element was pushed by
+	 * {@link #pushIndex(int)}, with zeros up to the given number of digits.
+	 * 
+	 * @param 	key the key.
+	 * @param 	offset the offset in the key of the first digit of the index.
+	 * @param 	index the index of the array element.
+	 * @param 	digits the number of digits to pad the index to.
+	 * @return 	the key with the padded index, or the given key when no padding is needed.
+	 */
+	public static String padIndex(String key, int offset, int index, int digits) {
+		int padding = digits - digits(index);
+		if (padding <= 0) {
+			return key;
+		}
+		char[] result = new char[key.length() + padding];
+		key.getChars(0, offset, result, 0);
+		Arrays.fill(result, offset, offset + padding, '0');
+		key.getChars(offset, key.length(), result, offset + padding);
+		return new String(result);
+	}
+	
+	/**
+	 * Gets the number of decimal digits of a non negative number.
+	 * 
+	 * @param 	number the number.
+	 * @return 	the number of digits.
+	 */
+	public static int digits(int number) {
+		int digits = 1;
+		while (number >= 10) {
+			number /= 10;
+			digits++;
+		}
+		return digits;
+	}
+	
+	private void pushOffset() {
+		if (depth == offsets.length) {
+			offsets = Arrays.copyOf(offsets, depth * 2);
+		}
+		offsets[depth++] = length;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * This class represents a pool of translation keys, so equal keys share a single {@code String} instead
+ * of every locale holding a copy of its own.
+ * 
+ * <p>A key can be looked up straight from a character buffer, see {@link #intern(char[], int, int)}, in
+ * which case a {@code String} is only created when the key is not in the pool yet. The pool is thread
+ * safe, as resources are read on several threads. It is split into segments with a lock of their own,
+ * so threads reading different keys hardly ever wait for each other.</p>
+ * 
+ * <p>The keys are held weakly. A key stays in the pool as long as a resource or bundle refers to it,
+ * so the keys of a bundle which has been closed are released without any bookkeeping.</p>
+ */
+public final class KeyPool {
+	private final static int SEGMENT_BITS = 4;
+	private final static int INITIAL_CAPACITY = 64;
+	private final static KeyPool SHARED = new KeyPool();
+	private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+	
+	/**
+	 * Creates a new empty pool.
+	 */
+	public KeyPool() {
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment();
+		}
+	}
+	
+	/**
+	 * Gets the pool shared by all resources and bundles of the editor.
+	 * 
+	 * @return 	the shared pool.
+	 */
+	public static KeyPool shared() {
+		return SHARED;
+	}
+	
+	/**
+	 * Gets the key of the pool equal to the given key, after adding the given key if there is none.
+	 * 
+	 * @param 	key the key.
+	 * @return 	the key of the pool.
+	 */
+	public String intern(String key) {
+		int hash = spread(key.hashCode());
+		return segment(hash).intern(hash, key, null, 0, key.length());
+	}
+	
+	/**
+	 * Gets the key of the pool consisting of the given characters, after adding a new key if there is none.
+	 * 
+	 * @param 	chars the buffer containing the characters.
+	 * @param 	offset the offset of the first character in the buffer.
+	 * @param 	length the number of characters.
+	 * @return 	the key of the pool.
+	 */
+	public String intern(char[] chars, int offset, int length) {
+		int hash = 0;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		hash = spread(hash);
+		return segment(hash).intern(hash, null, chars, offset, length);
+	}
+	
+	/**
+	 * Gets the number of keys in the pool, leaving out the keys which are no longer referred to and
+	 * have been released by the garbage collector.
+	 * 
+	 * @return 	the number of keys.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+	
+	private Segment segment(int hash) {
+		return segments[hash >>> (32 - SEGMENT_BITS)];
+	}
+	
+	/**
+	 * Spreads the bits of a hash code, as the hash codes of similar keys mostly differ in their low bits.
+	 */
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static boolean contentEquals(String key, char[] chars, int offset, int length) {
+		if (key.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (key.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * A part of the pool, holding the keys in a hash table of chained weak references. References
+	 * cleared by the garbage collector are removed from the table the next time the segment is used.
+	 */
+	private final static class Segment {
+		private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+		private Entry[] table = new Entry[INITIAL_CAPACITY];
+		private int size;
+		
+		public synchronized String intern(int hash, String key, char[] chars, int offset, int length) {
+			expunge();
+			int index = hash & (table.length - 1);
+			for (Entry entry = table[index]; entry != null; entry = entry.next) {
+				String entryKey = entry.hash == hash ? entry.get() : null;
+				if (entryKey != null && (key != null ? entryKey.equals(key) : contentEquals(entryKey, chars, offset, length))) {
+					return entryKey;
+				}
+			}
+			if (key == null) {
+				key = new String(chars, offset, length);
+			}
+			table[index] = new Entry(key, hash, table[index], queue);
+			if (++size * 4 > table.length * 3) {
+				resize();
+			}
+			return key;
+		}
+		
+		public synchronized int size() {
+			expunge();
+			return size;
+		}
+		
+		private void expunge() {
+			for (Reference<? extends String> reference; (reference = queue.poll()) != null; ) {
+				Entry cleared = (Entry) reference;
+				int index = cleared.hash & (table.length - 1);
+				Entry previous = null;
+				for (Entry entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+					if (entry == cleared) {
+						if (previous == null) {
+							table[index] = entry.next;
+						} else {
+							previous.next = entry.next;
+						}
+						size--;
+						break;
+					}
+				}
+			}
+		}
+		
+		private void resize() {
+			Entry[] oldTable = table;
+			table = new Entry[oldTable.length * 2];
+			int mask = table.length - 1;
+			for (Entry entry : oldTable) {
+				while (entry != null) {
+					Entry next = entry.next;
+					if (entry.get() == null) {
+						// The entry is left out, so it is no longer found once its reference is dequeued
+						size--;
+					} else {
+						int index = entry.hash & mask;
+						entry.next = table[index];
+						table[index] = entry;
+					}
+					entry = next;
+				}
+			}
+		}
+	}
+	
+	private final static class Entry extends WeakReference<String> {
+		private final int hash;
+		private Entry next;
+		
+		public Entry(String key, int hash, Entry next, ReferenceQueue<String> queue) {
+			super(key, queue);
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+
+/**
+ * This class represents a sorted map of translations which only holds the keys of a translation file
+ * in memory, together with the byte offset of each value in the file. A value is read from the file
+ * the first time it is requested and kept in a LRU cache of recently used values.
+ * 
+ * <p>Values stored in the map replace the values in the file. When the file has been changed on disk,
+ * the offsets of the values which are not replaced are read again from the changed file. Translations
+ * which have been removed from the file are removed from the map as well, of which the listener set by
+ * {@link #setRemovalListener(Consumer)} is notified. A file is considered changed when its size or last
+ * modified time has changed, or when its content has changed while it was indexed within the resolution
+ * of the file system timestamps.</p>
+ * 
+ * <p>To avoid reading values which are about to be discarded, {@link #put(String, String)} and
+ * {@link #remove(Object)} only return the previous value when it has been loaded already.</p>
+ */
+public class LazyTranslationMap extends AbstractMap<String,String> implements SortedMap<String,String> {
+	private final static int CACHE_SIZE = 1000;
+	private final ValueFile file;
+	private final NavigableMap<String,Object> entries;
+	
+	/**
+	 * Creates a new map by indexing the keys and value offsets of the given JSON translation file.
+	 * 
+	 * @param 	path the path to the translation file.
+	 * @throws 	IOException if an I/O error occurs reading the file or the file is not valid JSON.
+	 */
+	public LazyTranslationMap(Path path) throws IOException {
+		this.entries = Maps.newTreeMap();
+		this.file = new ValueFile(path, entries);
+	}
+	
+	private LazyTranslationMap(ValueFile file, NavigableMap<String,Object> entries) {
+		this.file = file;
+		this.entries = entries;
+	}
+	
+	/**
+	 * Sets the listener which is notified of the keys of the translations which have been removed from the 
+	 * map because they have been removed from the translation file on disk before their value was read.
+	 * 
+	 * @param 	listener the listener, or {@code null} to not notify anyone.
+	 */
+	public void setRemovalListener(Consumer<Set<String>> listener) {
+		file.removalListener = listener;
+	}
+	
+	/**
+	 * Gets the keys of the arrays of the translation file, as they were when the file was indexed.
+	 * 
+	 * @return 	the array keys.
+	 */
+	public Set<String> getArrayKeys() {
+		return Collections.unmodifiableSet(file.arrayKeys);
+	}
+	
+	@Override
+	public String get(Object key) {
+		return resolve((String) key, entries.get(key));
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return entries.containsKey(key);
+	}
+	
+	@Override
+	public String put(String key, String value) {
+		Object previous = entries.put(key, value);
+		return previous instanceof String ? (String) previous : null;
+	}
+	
+	@Override
+	public void putAll(Map<? extends String,? extends String> map) {
+		if (map instanceof LazyTranslationMap && ((LazyTranslationMap) map).file.path.equals(file.path)) {
+			// Both maps read from the same file, so copy the offsets instead of reading all values
+			entries.putAll(((LazyTranslationMap) map).entries);
+		} else {
+			super.putAll(map);
+		}
+	}
+	
+	@Override
+	public String remove(Object key) {
+		Object previous = entries.remove(key);
+		return previous instanceof String ? (String) previous : null;
+	}
+	
+	@Override
+	public void clear() {
+		entries.clear();
+	}
+	
+	@Override
+	public int size() {
+		return entries.size();
+	}
+	
+	@Override
+	public Set<String> keySet() {
+		return entries.navigableKeySet();
+	}
+	
+	@Override
+	public Set<Map.Entry<String,String>> entrySet() {
+		return new EntrySet();
+	}
+	
+	@Override
+	public Comparator<? super String> comparator() {
+		return null;
+	}
+	
+	@Override
+	public SortedMap<String,String> subMap(String fromKey, String toKey) {
+		return new LazyTranslationMap(file, entries.subMap(fromKey, true, toKey, false));
+	}
+	
+	@Override
+	public SortedMap<String,String> headMap(String toKey) {
+		return new LazyTranslationMap(file, entries.headMap(toKey, false));
+	}
+	
+	@Override
+	public SortedMap<String,String> tailMap(String fromKey) {
+		return new LazyTranslationMap(file, entries.tailMap(fromKey, true));
+	}
+	
+	@Override
+	public String firstKey() {
+		return entries.firstKey();
+	}
+	
+	@Override
+	public String lastKey() {
+		return entries.lastKey();
+	}
+	
+	private String resolve(String key, Object value) {
+		if (value instanceof Long) {
+			return file.load(key, (Long) value);
+		}
+		return (String) value;
+	}
+	
+	private class EntrySet extends AbstractSet<Map.Entry<String,String>> {
+		@Override
+		public Iterator<Map.Entry<String,String>> iterator() {
+			// Reading all values at once is a lot cheaper than reading each value from its own offset
+			Map<String,String> values = null;
+			if (entries.values().stream().filter(v -> v instanceof Long).count() > CACHE_SIZE) {
+				values = file.loadAll();
+			}
+			Map<String,String> loadedValues = values;
+			Iterator<Map.Entry<String,Object>> iterator = entries.entrySet().iterator();
+			return new Iterator<Map.Entry<String,String>>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+				
+				@Override
+				public Map.Entry<String,String> next() {
+					Map.Entry<String,Object> entry = iterator.next();
+					String key = entry.getKey();
+					Object value = entry.getValue();
+					if (loadedValues != null && value instanceof Long) {
+						return Maps.immutableEntry(key, loadedValues.get(key));
+					}
+					return Maps.immutableEntry(key, resolve(key, value));
+				}
+				
+				@Override
+				public void remove() {
+					iterator.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return entries.size();
+		}
+	}
+	
+	/**
+	 * The translation file the values are read from.
+	 */
+	private static class ValueFile {
+		private final static long TIMESTAMP_RESOLUTION = 2000;
+		private final Path path;
+		private final NavigableMap<String,Object> entries;
+		private final Set<String> arrayKeys = Sets.newHashSet();
+		private final Cache<String,String> cache = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+		private long size;
+		private long lastModified;
+		private HashCode hash;
+		private Consumer<Set<String>> removalListener;
+		
+		public ValueFile(Path path, NavigableMap<String,Object> entries) throws IOException {
+			this.path = path;
+			this.entries = entries;
+			updateFingerprint();
+			entries.putAll(Resources.index(path, arrayKeys));
+		}
+		
+		public String load(String key, long offset) {
+			try {
+				if (checkModified()) {
+					// The offset might have been changed by the modification
+					Object value = entries.get(key);
+					if (!(value instanceof Long)) {
+						return (String) value;
+					}
+					offset = (Long) value;
+				}
+				long valueOffset = offset;
+				return cache.get(key, () -> Resources.readValue(path, valueOffset));
+			} catch (IOException | ExecutionException e) {
+				throw new UncheckedIOException(new IOException("Unable to read translation '" + key + "' of " + path, e));
+			}
+		}
+		
+		public Map<String,String> loadAll() {
+			try {
+				checkModified();
+				return Resources.readTranslations(ResourceType.JSON, path, Sets.newHashSet());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		/**
+		 * Checks whether the file has been changed since it was indexed, in which case the offsets of all
+		 * values which are not loaded yet are replaced by the offsets in the changed file.
+		 */
+		private boolean checkModified() throws IOException {
+			if (Files.size(path) == size && Files.getLastModifiedTime(path).toMillis() == lastModified && !isChanged()) {
+				return false;
+			}
+			updateFingerprint();
+			SortedMap<String,Long> offsets = Resources.index(path, Sets.newHashSet());
+			Set<String> removedKeys = Sets.newTreeSet();
+			entries.forEach((key, value) -> {
+				if (value instanceof Long && !offsets.containsKey(key)) {
+					removedKeys.add(key);
+				}
+			});
+			entries.keySet().removeAll(removedKeys);
+			entries.replaceAll((key, value) -> value instanceof Long ? offsets.get(key) : value);
+			cache.invalidateAll();
+			if (!removedKeys.isEmpty() && removalListener != null) {
+				removalListener.accept(Collections.unmodifiableSet(removedKeys));
+			}
+			return true;
+		}
+		
+		/**
+		 * Checks whether the content of a file which has been modified within the resolution of the file 
+		 * system timestamps of its indexing has been changed, which its size and timestamp do not tell.
+		 */
+		private boolean isChanged() throws IOException {
+			if (hash == null) {
+				return false;
+			}
+			if (!Resources.hash(path).equals(hash)) {
+				return true;
+			}
+			if (System.currentTimeMillis() - lastModified >= TIMESTAMP_RESOLUTION) {
+				// Any later change of the content changes the timestamp as well
+				hash = null;
+			}
+			return false;
+		}
+		
+		private void updateFingerprint() throws IOException {
+			size = Files.size(path);
+			lastModified = Files.getLastModifiedTime(path).toMillis();
+			hash = System.currentTimeMillis() - lastModified < TIMESTAMP_RESOLUTION ? Resources.hash(path) : null;
+		}
+	}
+}
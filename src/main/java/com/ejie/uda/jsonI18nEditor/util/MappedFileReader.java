@@ -0,0 +1,130 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents a {@link Reader} which decodes the characters of a file directly from a
+ * memory mapped view of the file, without copying the file content to the heap first.
+ * 
+ * <p>The file is mapped in windows of at most {@value #DEFAULT_WINDOW_SIZE} bytes, so files larger
+ * than the maximum size of a single mapping can be read as well.</p>
+ */
+public class MappedFileReader extends Reader {
+	private final static int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+	private final static int CHAR_BUFFER_SIZE = 8192;
+	private final FileChannel channel;
+	private final CharsetDecoder decoder;
+	private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+	private final long size;
+	private final int windowSize;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private boolean endOfInput;
+	
+	/**
+	 * Creates a new reader for the given file, decoding its content with the given charset.
+	 * 
+	 * @param 	path the path of the file to read.
+	 * @param 	charset the charset of the file.
+	 * @throws 	IOException if an I/O error occurs opening or mapping the file.
+	 */
+	public MappedFileReader(Path path, Charset charset) throws IOException {
+		this(path, charset, DEFAULT_WINDOW_SIZE);
+	}
+	
+	/**
+	 * Creates a new reader with a custom window size. The window size must be at least the 
+	 * maximum number of bytes of a single character in the given charset.
+	 */
+	MappedFileReader(Path path, Charset charset, int windowSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.decoder = charset.newDecoder();
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		chars.flip();
+		map(0);
+	}
+	
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!chars.hasRemaining() && !fill()) {
+			return -1;
+		}
+		int n = Math.min(len, chars.remaining());
+		chars.get(cbuf, off, n);
+		return n;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		unmap();
+		channel.close();
+	}
+	
+	private boolean fill() throws IOException {
+		chars.clear();
+		try {
+			while (chars.position() == 0) {
+				if (endOfInput) {
+					decoder.flush(chars);
+					break;
+				}
+				boolean lastWindow = windowStart + window.limit() >= size;
+				CoderResult result = decoder.decode(window, chars, lastWindow);
+				if (result.isError()) {
+					result.throwException();
+				}
+				if (result.isUnderflow()) {
+					if (lastWindow) {
+						endOfInput = true;
+					} else {
+						// Continue with the next window, starting at the first byte not yet decoded,
+						// which might be the start of a character split by the window boundary
+						map(windowStart + window.position());
+					}
+				}
+			}
+		} finally {
+			chars.flip();
+		}
+		return chars.hasRemaining();
+	}
+	
+	private void map(long position) throws IOException {
+		unmap();
+		windowStart = position;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+	}
+	
+	private void unmap() {
+		if (window == null) {
+			return;
+		}
+		// A mapping is only released when the buffer is garbage collected, which keeps the file locked
+		// on some platforms, so try to release it explicitly when the running JVM supports it
+		try {
+			Method cleanerMethod = window.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(window);
+			if (cleaner != null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (Exception e) {
+			// Leave it to the garbage collector
+		}
+		window = null;
+	}
+}
@@ -0,0 +1,282 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * This class represents a minimal JSON reader which reads UTF-8 encoded bytes and keeps track of the
+ * byte offset of every token it reads, so a value can be read again later on directly from its offset.
+ * 
+ * <p>The reader only supports standard JSON and does not validate the separators between tokens.</p>
+ */
+public class OffsetJsonReader implements Closeable {
+	private final InputStream in;
+	private final StringBuilder builder = new StringBuilder();
+	private long position;
+	private int peekedByte = -2;
+	
+	/**
+	 * Creates a new reader.
+	 * 
+	 * @param 	in the stream to read from, preferably a buffered one.
+	 * @param 	position the byte offset in the file of the first byte of the stream.
+	 */
+	public OffsetJsonReader(InputStream in, long position) {
+		this.in = in;
+		this.position = position;
+	}
+	
+	/**
+	 * Returns the type of the next token without consuming it.
+	 * 
+	 * @return 	the type of the next token.
+	 * @throws 	IOException if an I/O error occurs or the content is not valid JSON.
+	 */
+	public JsonToken peek() throws IOException {
+		int c = peekToken();
+		switch (c) {
+			case -1: return JsonToken.END_DOCUMENT;
+			case '{': return JsonToken.BEGIN_OBJECT;
+			case '}': return JsonToken.END_OBJECT;
+			case '[': return JsonToken.BEGIN_ARRAY;
+			case ']': return JsonToken.END_ARRAY;
+			case '"': return JsonToken.STRING;
+			case 't':
+			case 'f': return JsonToken.BOOLEAN;
+			case 'n': return JsonToken.NULL;
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					return JsonToken.NUMBER;
+				}
+				throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+	
+	/**
+	 * Returns the byte offset of the next token.
+	 * 
+	 * @return	the byte offset.
+	 * @throws 	IOException if an I/O error occurs.
+	 */
+	public long getPosition() throws IOException {
+		peekToken();
+		return position;
+	}
+	
+	public void beginObject() throws IOException {
+		expect('{');
+	}
+	
+	public void endObject() throws IOException {
+		expect('}');
+	}
+	
+	public void beginArray() throws IOException {
+		expect('[');
+	}
+	
+	public void endArray() throws IOException {
+		expect(']');
+	}
+	
+	public boolean hasNext() throws IOException {
+		int c = peekToken();
+		return c != '}' && c != ']' && c != -1;
+	}
+	
+	public String nextName() throws IOException {
+		if (peekToken() != '"') {
+			throw syntaxError("Expected a name");
+		}
+		return readString();
+	}
+	
+	/**
+	 * Reads the next scalar value as a string. Strings and numbers are returned as they are written,
+	 * booleans as {@code "true"} or {@code "false"} and {@code null} as {@code null}.
+	 * 
+	 * @return 	the value.
+	 * @throws 	IOException if an I/O error occurs or the next token is not a scalar value.
+	 */
+	public String nextValue() throws IOException {
+		JsonToken token = peek();
+		switch (token) {
+			case STRING:
+				return readString();
+			case NUMBER:
+				return readLiteral();
+			case BOOLEAN:
+			case NULL:
+				String literal = readLiteral();
+				if (literal.equals("null")) {
+					return null;
+				}
+				if (!literal.equals("true") && !literal.equals("false")) {
+					throw syntaxError("Unexpected literal '" + literal + "'");
+				}
+				return literal;
+			default:
+				throw syntaxError("Expected a value but was " + token);
+		}
+	}
+	
+	/**
+	 * Skips the next value, including all nested values when it is an object or an array.
+	 * 
+	 * @throws 	IOException if an I/O error occurs or the content is not valid JSON.
+	 */
+	public void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			switch (peek()) {
+				case BEGIN_OBJECT:
+				case BEGIN_ARRAY:
+					read();
+					depth++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					read();
+					depth--;
+					break;
+				case END_DOCUMENT:
+					throw syntaxError("Unexpected end of document");
+				default:
+					if (depth > 0 && peekToken() == '"') {
+						readString();
+					} else {
+						nextValue();
+					}
+			}
+		} while (depth > 0);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	private void expect(int expected) throws IOException {
+		if (peekToken() != expected) {
+			throw syntaxError("Expected '" + (char) expected + "'");
+		}
+		read();
+	}
+	
+	/**
+	 * Skips whitespace and separators and returns the first byte of the next token without consuming it.
+	 */
+	private int peekToken() throws IOException {
+		int c = peekByte();
+		while (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == ':') {
+			read();
+			c = peekByte();
+		}
+		return c;
+	}
+	
+	private String readLiteral() throws IOException {
+		builder.setLength(0);
+		int c = peekByte();
+		while (c != -1 && c != ',' && c != '}' && c != ']' && c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+			builder.append((char) read());
+			c = peekByte();
+		}
+		return builder.toString();
+	}
+	
+	private String readString() throws IOException {
+		builder.setLength(0);
+		read();
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return builder.toString();
+			} else if (c == '\\') {
+				readEscape();
+			} else if (c < 0x80) {
+				if (c == -1) {
+					throw syntaxError("Unterminated string");
+				}
+				builder.append((char) c);
+			} else {
+				readMultibyte(c);
+			}
+		}
+	}
+	
+	private void readEscape() throws IOException {
+		int c = read();
+		switch (c) {
+			case 'b': builder.append('\b'); break;
+			case 'f': builder.append('\f'); break;
+			case 'n': builder.append('\n'); break;
+			case 'r': builder.append('\r'); break;
+			case 't': builder.append('\t'); break;
+			case 'u':
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = Character.digit(read(), 16);
+					if (digit == -1) {
+						throw syntaxError("Invalid unicode escape");
+					}
+					value = value * 16 + digit;
+				}
+				builder.append((char) value);
+				break;
+			case -1:
+				throw syntaxError("Unterminated escape sequence");
+			default:
+				builder.append((char) c);
+		}
+	}
+	
+	private void readMultibyte(int first) throws IOException {
+		int count;
+		int codePoint;
+		if ((first & 0xE0) == 0xC0) {
+			count = 1;
+			codePoint = first & 0x1F;
+		} else if ((first & 0xF0) == 0xE0) {
+			count = 2;
+			codePoint = first & 0x0F;
+		} else if ((first & 0xF8) == 0xF0) {
+			count = 3;
+			codePoint = first & 0x07;
+		} else {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+		for (int i = 0; i < count; i++) {
+			int c = read();
+			if ((c & 0xC0) != 0x80) {
+				throw syntaxError("Malformed UTF-8 input");
+			}
+			codePoint = (codePoint << 6) | (c & 0x3F);
+		}
+		builder.appendCodePoint(codePoint);
+	}
+	
+	private int peekByte() throws IOException {
+		if (peekedByte == -2) {
+			peekedByte = in.read();
+		}
+		return peekedByte;
+	}
+	
+	private int read() throws IOException {
+		int c = peekByte();
+		peekedByte = -2;
+		if (c != -1) {
+			position++;
+		}
+		return c;
+	}
+	
+	private MalformedJsonException syntaxError(String message) {
+		return new MalformedJsonException(message + " at byte " + position);
+	}
+}
@@ -0,0 +1,107 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.nio.file.Path;
+
+import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+
+/**
+ * This class represents an additional output format of a resource, which is written next to the resource
+ * file whenever the resource is saved.
+ * 
+ * <p>A format is defined by the extension of the file it is written to, which replaces the extension
+ * of the resource file:</p>
+ * 
+ * <ul>
+ * <li>{@code json} pretty printed JSON, like 'x21aApp.i18n_es.json'.</li>
+ * <li>{@code min.json} minified JSON, like 'x21aApp.i18n_es.min.json'.</li>
+ * <li>{@code js} and {@code min.js} an ES6 module, like 'x21aApp.i18n_es.js'.</li>
+ * <li>Any of the above followed by {@code .gz} for gzip compressed content, like 'x21aApp.i18n_es.min.json.gz'.</li>
+ * </ul>
+ */
+public final class OutputFormat {
+	private final static String MINIFIED_PREFIX = "min.";
+	private final static String GZIP_SUFFIX = ".gz";
+	private final String extension;
+	private final ResourceType type;
+	private final boolean prettyPrinting;
+	private final boolean gzip;
+	
+	private OutputFormat(String extension, ResourceType type, boolean prettyPrinting, boolean gzip) {
+		this.extension = extension;
+		this.type = type;
+		this.prettyPrinting = prettyPrinting;
+		this.gzip = gzip;
+	}
+	
+	/**
+	 * Gets the format of the given file extension.
+	 * 
+	 * @param 	extension the extension, like {@code min.json.gz}.
+	 * @return 	the format.
+	 * @throws 	IllegalArgumentException if the extension does not define a format.
+	 */
+	public static OutputFormat parse(String extension) {
+		String format = extension.trim().toLowerCase();
+		boolean gzip = format.endsWith(GZIP_SUFFIX);
+		if (gzip) {
+			format = format.substring(0, format.length() - GZIP_SUFFIX.length());
+		}
+		boolean minified = format.startsWith(MINIFIED_PREFIX);
+		if (minified) {
+			format = format.substring(MINIFIED_PREFIX.length());
+		}
+		ResourceType type;
+		if (format.equals("json")) {
+			type = ResourceType.JSON;
+		} else if (format.equals("js")) {
+			type = ResourceType.ES6;
+		} else {
+			throw new IllegalArgumentException("Unknown output format '" + extension + "'");
+		}
+		return new OutputFormat(extension.trim().toLowerCase(), type, !minified, gzip);
+	}
+	
+	/**
+	 * Gets the format of a resource file itself.
+	 * 
+	 * @param 	type the type of the resource.
+	 * @param 	prettyPrinting whether the content is pretty printed.
+	 * @return 	the format.
+	 */
+	public static OutputFormat of(ResourceType type, boolean prettyPrinting) {
+		return parse((prettyPrinting ? "" : MINIFIED_PREFIX) + (type == ResourceType.ES6 ? "js" : "json"));
+	}
+	
+	/**
+	 * Gets the path of the file of the given resource file in this format.
+	 * 
+	 * @param 	resourcePath the path of the resource file.
+	 * @return 	the path of the output file.
+	 */
+	public Path resolve(Path resourcePath) {
+		String fileName = resourcePath.getFileName().toString();
+		int dot = fileName.lastIndexOf('.');
+		return resourcePath.resolveSibling((dot == -1 ? fileName : fileName.substring(0, dot)) + "." + extension);
+	}
+	
+	public String getExtension() {
+		return extension;
+	}
+	
+	public ResourceType getType() {
+		return type;
+	}
+	
+	public boolean isPrettyPrinting() {
+		return prettyPrinting;
+	}
+	
+	public boolean isGzip() {
+		return gzip;
+	}
+	
+	@Override
+	public String toString() {
+		return extension;
+	}
+}
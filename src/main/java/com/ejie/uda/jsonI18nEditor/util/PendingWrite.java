@@ -0,0 +1,152 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+
+/**
+ * This class represents a number of files which have been written to temporary files next to them,
+ * but which have not replaced the files yet.
+ * 
+ * <p>Committing the write forces the temporary files to disk and moves them over the files, by an atomic
+ * move where supported. Forcing and moving are separate steps, so a number of writes can be forced together
+ * before any of them is moved, see {@link SavePipeline}.</p>
+ */
+public final class PendingWrite {
+	private final List<Path> paths;
+	private final List<Path> tempPaths;
+	private final HashCode hash;
+	private final long size;
+	
+	PendingWrite(List<Path> paths, List<Path> tempPaths, HashCode hash, long size) {
+		this.paths = ImmutableList.copyOf(paths);
+		this.tempPaths = ImmutableList.copyOf(tempPaths);
+		this.hash = hash;
+		this.size = size;
+	}
+	
+	/**
+	 * Gets the paths of the files written, the first path is the path of the resource file.
+	 * 
+	 * @return 	the paths.
+	 */
+	public List<Path> getPaths() {
+		return paths;
+	}
+	
+	/**
+	 * Gets the hash of the content written to the first file, as computed by {@link Resources#hash(Path)}.
+	 * 
+	 * @return 	the hash.
+	 */
+	public HashCode getHash() {
+		return hash;
+	}
+	
+	/**
+	 * Gets the total number of bytes written to the temporary files.
+	 * 
+	 * @return 	the number of bytes.
+	 */
+	public long getSize() {
+		return size;
+	}
+	
+	/**
+	 * Forces the content of the temporary files to disk.
+	 * 
+	 * @throws 	IOException if an I/O error occurs.
+	 */
+	public void force() throws IOException {
+		for (Path tempPath : tempPaths) {
+			try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+				channel.force(false);
+			}
+		}
+	}
+	
+	/**
+	 * Replaces the files by the temporary files. The first file is replaced last, so that a resource file
+	 * is never newer than the files derived from it.
+	 * 
+	 * @throws 	IOException if an I/O error occurs.
+	 */
+	public void move() throws IOException {
+		for (int i = paths.size() - 1; i >= 0; i--) {
+			Path path = paths.get(i);
+			Path tempPath = tempPaths.get(i);
+			copyPermissions(path, tempPath);
+			try {
+				Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+	
+	/**
+	 * Forces the temporary files to disk and replaces the files by them. The temporary files are deleted
+	 * when committing fails.
+	 * 
+	 * @throws 	IOException if an I/O error occurs.
+	 */
+	public void commit() throws IOException {
+		try {
+			force();
+			move();
+		} catch (IOException | RuntimeException e) {
+			discard();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Deletes the temporary files which have not replaced the files.
+	 * 
+	 * @throws 	IOException if an I/O error occurs.
+	 */
+	public void discard() throws IOException {
+		for (Path tempPath : tempPaths) {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+	
+	/**
+	 * Forces the entries of the given directories to disk, so files moved into them survive a crash.
+	 * Not every platform can open a directory, on which the directories are left as they are.
+	 * 
+	 * @param 	dirs the directories.
+	 */
+	public static void forceDirectories(Collection<Path> dirs) {
+		for (Path dir : dirs) {
+			try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+				channel.force(true);
+			} catch (IOException e) {
+				// Directories can not be opened on every platform
+			}
+		}
+	}
+	
+	/**
+	 * Gives the file which replaces an existing file the same permissions as the existing file.
+	 */
+	private static void copyPermissions(Path path, Path newPath) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+		if (view != null) {
+			Files.setPosixFilePermissions(newPath, view.readAttributes().permissions());
+		}
+	}
+}
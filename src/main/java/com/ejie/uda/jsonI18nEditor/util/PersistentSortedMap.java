@@ -0,0 +1,490 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class represents an immutable sorted map which shares its structure with the maps it has been
+ * derived from.
+ * 
+ * <p>The entries are held in a balanced (AVL) binary tree. Deriving a map by {@link #plus(Comparable, Object)}
+ * or {@link #minus(Object)} copies only the nodes on the path to the changed entry, all other nodes are
+ * shared with the original map. Both maps stay valid and can be read by any thread.</p>
+ * 
+ * <p>The nodes can be edited in place by a {@link VersionedSortedMap} as long as no version of the
+ * map has been taken which contains them, see {@link VersionedSortedMap#snapshot()}.</p>
+ * 
+ * @param 	<K> the type of the keys.
+ * @param 	<V> the type of the values.
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>,V> extends AbstractMap<K,V> implements SortedMap<K,V> {
+	private final Node<K,V> root;
+	private final K fromKey;
+	private final K toKey;
+	
+	PersistentSortedMap(Node<K,V> root, K fromKey, K toKey) {
+		this.root = root;
+		this.fromKey = fromKey;
+		this.toKey = toKey;
+	}
+	
+	/**
+	 * Gets an empty map.
+	 * 
+	 * @return 	the empty map.
+	 */
+	public static <K extends Comparable<? super K>,V> PersistentSortedMap<K,V> of() {
+		return new PersistentSortedMap<>(null, null, null);
+	}
+	
+	/**
+	 * Gets a map containing the entries of the given map.
+	 * 
+	 * @param 	map the map to copy.
+	 * @return 	the map.
+	 */
+	public static <K extends Comparable<? super K>,V> PersistentSortedMap<K,V> copyOf(Map<? extends K,? extends V> map) {
+		return new PersistentSortedMap<>(build(map, null), null, null);
+	}
+	
+	/**
+	 * Gets a map which has the given value for the given key and the entries of this map for all other keys.
+	 * 
+	 * @param 	key the key.
+	 * @param 	value the value.
+	 * @return 	the derived map.
+	 * @throws 	IllegalArgumentException if the key is outside the range of this map.
+	 */
+	public PersistentSortedMap<K,V> plus(K key, V value) {
+		Preconditions.checkArgument(inRange(key, fromKey, toKey), "key out of range");
+		return new PersistentSortedMap<>(put(root, key, value, null), fromKey, toKey);
+	}
+	
+	/**
+	 * Gets a map which has the entries of this map except for the given key.
+	 * 
+	 * @param 	key the key.
+	 * @return 	the derived map.
+	 */
+	public PersistentSortedMap<K,V> minus(Object key) {
+		if (!containsKey(key)) {
+			return this;
+		}
+		return new PersistentSortedMap<>(remove(root, cast(key), null), fromKey, toKey);
+	}
+	
+	@Override
+	public V get(Object key) {
+		Node<K,V> node = containsKey(key) ? find(root, cast(key)) : null;
+		return node == null ? null : node.value;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return key != null && inRange(cast(key), fromKey, toKey) && find(root, cast(key)) != null;
+	}
+	
+	@Override
+	public int size() {
+		return size(root, fromKey, toKey);
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return first(root, fromKey, toKey) == null;
+	}
+	
+	@Override
+	public SortedSet<K> keySet() {
+		return new SortedKeySet<>(this);
+	}
+	
+	@Override
+	public Set<Map.Entry<K,V>> entrySet() {
+		return new AbstractSet<Map.Entry<K,V>>() {
+			@Override
+			public Iterator<Map.Entry<K,V>> iterator() {
+				return new NodeIterator<>(root, fromKey, toKey);
+			}
+			
+			@Override
+			public int size() {
+				return PersistentSortedMap.this.size();
+			}
+		};
+	}
+	
+	@Override
+	public Comparator<? super K> comparator() {
+		return null;
+	}
+	
+	@Override
+	public PersistentSortedMap<K,V> subMap(K fromKey, K toKey) {
+		checkRange(fromKey, this.fromKey, this.toKey);
+		checkRange(toKey, this.fromKey, this.toKey);
+		Preconditions.checkArgument(fromKey.compareTo(toKey) <= 0, "fromKey > toKey");
+		return new PersistentSortedMap<>(root, fromKey, toKey);
+	}
+	
+	@Override
+	public PersistentSortedMap<K,V> headMap(K toKey) {
+		checkRange(toKey, fromKey, this.toKey);
+		return new PersistentSortedMap<>(root, fromKey, toKey);
+	}
+	
+	@Override
+	public PersistentSortedMap<K,V> tailMap(K fromKey) {
+		checkRange(fromKey, this.fromKey, toKey);
+		return new PersistentSortedMap<>(root, fromKey, toKey);
+	}
+	
+	@Override
+	public K firstKey() {
+		Node<K,V> node = first(root, fromKey, toKey);
+		if (node == null) {
+			throw new NoSuchElementException();
+		}
+		return node.key;
+	}
+	
+	@Override
+	public K lastKey() {
+		Node<K,V> node = last(root, fromKey, toKey);
+		if (node == null) {
+			throw new NoSuchElementException();
+		}
+		return node.key;
+	}
+	
+	/**
+	 * A node of the tree. A node is only changed in place when it belongs to the edit of the map
+	 * changing it, all other nodes are copied first.
+	 */
+	static final class Node<K,V> implements Map.Entry<K,V> {
+		private final K key;
+		private V value;
+		private Node<K,V> left;
+		private Node<K,V> right;
+		private int height;
+		private int size;
+		private final Object edit;
+		
+		private Node(K key, V value, Node<K,V> left, Node<K,V> right, Object edit) {
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.edit = edit;
+			update();
+		}
+		
+		@Override
+		public K getKey() {
+			return key;
+		}
+		
+		@Override
+		public V getValue() {
+			return value;
+		}
+		
+		@Override
+		public V setValue(V value) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+			return key.equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+		}
+		
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+		
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+		
+		private void update() {
+			height = Math.max(height(left), height(right)) + 1;
+			size = size(left) + size(right) + 1;
+		}
+	}
+	
+	/**
+	 * Iterates the nodes of a range of a tree in key order.
+	 */
+	static final class NodeIterator<K extends Comparable<? super K>,V> implements Iterator<Map.Entry<K,V>> {
+		private final Deque<Node<K,V>> stack = new ArrayDeque<>();
+		private final K toKey;
+		
+		NodeIterator(Node<K,V> root, K fromKey, K toKey) {
+			this.toKey = toKey;
+			for (Node<K,V> node = root; node != null; ) {
+				if (fromKey != null && node.key.compareTo(fromKey) < 0) {
+					node = node.right;
+				} else {
+					stack.push(node);
+					node = node.left;
+				}
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty() && (toKey == null || stack.peek().key.compareTo(toKey) < 0);
+		}
+		
+		@Override
+		public Node<K,V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Node<K,V> node = stack.pop();
+			for (Node<K,V> child = node.right; child != null; child = child.left) {
+				stack.push(child);
+			}
+			return node;
+		}
+	}
+	
+	static <K extends Comparable<? super K>,V> Node<K,V> find(Node<K,V> node, K key) {
+		while (node != null) {
+			int c = key.compareTo(node.key);
+			if (c == 0) {
+				return node;
+			}
+			node = c < 0 ? node.left : node.right;
+		}
+		return null;
+	}
+	
+	static <K extends Comparable<? super K>,V> Node<K,V> put(Node<K,V> root, K key, V value, Object edit) {
+		Node<K,V> node = find(root, key);
+		return node != null && node.value == value ? root : insert(root, key, value, edit);
+	}
+	
+	static <K extends Comparable<? super K>,V> Node<K,V> remove(Node<K,V> root, K key, Object edit) {
+		return find(root, key) == null ? root : delete(root, key, edit);
+	}
+	
+	/**
+	 * Builds a balanced tree of the entries of the given map, which is sorted first when it is not
+	 * sorted by the natural order of its keys already.
+	 */
+	static <K extends Comparable<? super K>,V> Node<K,V> build(Map<? extends K,? extends V> map, Object edit) {
+		if (!(map instanceof SortedMap) || ((SortedMap<?,?>) map).comparator() != null) {
+			Node<K,V> root = null;
+			Object buildEdit = edit == null ? new Object() : edit;
+			for (Map.Entry<? extends K,? extends V> entry : map.entrySet()) {
+				root = put(root, Preconditions.checkNotNull(entry.getKey()), entry.getValue(), buildEdit);
+			}
+			return root;
+		}
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Map.Entry<K,V>[] entries = map.entrySet().toArray(new Map.Entry[map.size()]);
+		return build(entries, 0, entries.length, edit);
+	}
+	
+	static int size(Node<?,?> node) {
+		return node == null ? 0 : node.size;
+	}
+	
+	static <K extends Comparable<? super K>,V> int size(Node<K,V> root, K fromKey, K toKey) {
+		if (fromKey == null && toKey == null) {
+			return size(root);
+		}
+		return (toKey == null ? size(root) : rank(root, toKey)) - (fromKey == null ? 0 : rank(root, fromKey));
+	}
+	
+	static <K extends Comparable<? super K>,V> Node<K,V> first(Node<K,V> node, K fromKey, K toKey) {
+		Node<K,V> result = null;
+		while (node != null) {
+			if (fromKey != null && node.key.compareTo(fromKey) < 0) {
+				node = node.right;
+			} else {
+				result = node;
+				node = node.left;
+			}
+		}
+		return result != null && (toKey == null || result.key.compareTo(toKey) < 0) ? result : null;
+	}
+	
+	static <K extends Comparable<? super K>,V> Node<K,V> last(Node<K,V> node, K fromKey, K toKey) {
+		Node<K,V> result = null;
+		while (node != null) {
+			if (toKey != null && node.key.compareTo(toKey) >= 0) {
+				node = node.left;
+			} else {
+				result = node;
+				node = node.right;
+			}
+		}
+		return result != null && (fromKey == null || result.key.compareTo(fromKey) >= 0) ? result : null;
+	}
+	
+	static <K extends Comparable<? super K>> boolean inRange(K key, K fromKey, K toKey) {
+		return (fromKey == null || key.compareTo(fromKey) >= 0) && (toKey == null || key.compareTo(toKey) < 0);
+	}
+	
+	static <K extends Comparable<? super K>> void checkRange(K key, K fromKey, K toKey) {
+		Preconditions.checkNotNull(key);
+		Preconditions.checkArgument((fromKey == null || key.compareTo(fromKey) >= 0)
+				&& (toKey == null || key.compareTo(toKey) <= 0), "key out of range");
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <K> K cast(Object key) {
+		return (K) key;
+	}
+	
+	/**
+	 * Gets the number of keys of the tree which are less than the given key.
+	 */
+	private static <K extends Comparable<? super K>,V> int rank(Node<K,V> node, K key) {
+		int rank = 0;
+		while (node != null) {
+			if (key.compareTo(node.key) <= 0) {
+				node = node.left;
+			} else {
+				rank += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return rank;
+	}
+	
+	private static <K extends Comparable<? super K>,V> Node<K,V> build(Map.Entry<K,V>[] entries, int from, int to, Object edit) {
+		if (from == to) {
+			return null;
+		}
+		int middle = (from + to) >>> 1;
+		Node<K,V> left = build(entries, from, middle, edit);
+		Node<K,V> right = build(entries, middle + 1, to, edit);
+		return new Node<>(entries[middle].getKey(), entries[middle].getValue(), left, right, edit);
+	}
+	
+	private static <K extends Comparable<? super K>,V> Node<K,V> insert(Node<K,V> node, K key, V value, Object edit) {
+		if (node == null) {
+			return new Node<>(key, value, null, null, edit);
+		}
+		Node<K,V> result = editable(node, edit);
+		int c = key.compareTo(node.key);
+		if (c == 0) {
+			result.value = value;
+			return result;
+		}
+		if (c < 0) {
+			result.left = insert(node.left, key, value, edit);
+		} else {
+			result.right = insert(node.right, key, value, edit);
+		}
+		return balance(result, edit);
+	}
+	
+	/**
+	 * Deletes a key which is known to be in the tree.
+	 */
+	private static <K extends Comparable<? super K>,V> Node<K,V> delete(Node<K,V> node, K key, Object edit) {
+		int c = key.compareTo(node.key);
+		if (c == 0) {
+			if (node.left == null) {
+				return node.right;
+			}
+			if (node.right == null) {
+				return node.left;
+			}
+			// The node is replaced by the first node of its right subtree
+			Node<K,V> next = node.right;
+			while (next.left != null) {
+				next = next.left;
+			}
+			return balance(new Node<>(next.key, next.value, node.left, removeFirst(node.right, edit), edit), edit);
+		}
+		Node<K,V> result = editable(node, edit);
+		if (c < 0) {
+			result.left = delete(node.left, key, edit);
+		} else {
+			result.right = delete(node.right, key, edit);
+		}
+		return balance(result, edit);
+	}
+	
+	private static <K extends Comparable<? super K>,V> Node<K,V> removeFirst(Node<K,V> node, Object edit) {
+		if (node.left == null) {
+			return node.right;
+		}
+		Node<K,V> result = editable(node, edit);
+		result.left = removeFirst(node.left, edit);
+		return balance(result, edit);
+	}
+	
+	private static <K,V> Node<K,V> editable(Node<K,V> node, Object edit) {
+		if (edit != null && node.edit == edit) {
+			return node;
+		}
+		return new Node<>(node.key, node.value, node.left, node.right, edit);
+	}
+	
+	/**
+	 * Restores the balance of an editable node of which a subtree has been changed.
+	 */
+	private static <K,V> Node<K,V> balance(Node<K,V> node, Object edit) {
+		int balance = height(node.left) - height(node.right);
+		if (balance > 1) {
+			if (height(node.left.left) < height(node.left.right)) {
+				node.left = rotateLeft(editable(node.left, edit), edit);
+			}
+			return rotateRight(node, edit);
+		}
+		if (balance < -1) {
+			if (height(node.right.right) < height(node.right.left)) {
+				node.right = rotateRight(editable(node.right, edit), edit);
+			}
+			return rotateLeft(node, edit);
+		}
+		node.update();
+		return node;
+	}
+	
+	private static <K,V> Node<K,V> rotateRight(Node<K,V> node, Object edit) {
+		Node<K,V> left = editable(node.left, edit);
+		node.left = left.right;
+		node.update();
+		left.right = node;
+		left.update();
+		return left;
+	}
+	
+	private static <K,V> Node<K,V> rotateLeft(Node<K,V> node, Object edit) {
+		Node<K,V> right = editable(node.right, edit);
+		node.right = right.left;
+		node.update();
+		right.left = node;
+		right.update();
+		return right;
+	}
+	
+	private static int height(Node<?,?> node) {
+		return node == null ? 0 : node.height;
+	}
+}
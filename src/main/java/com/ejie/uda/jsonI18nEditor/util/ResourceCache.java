@@ -0,0 +1,312 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * This class represents a disk cache of binary snapshots of parsed translation files.
+ * 
+ * <p>A snapshot is keyed by the path, size, last modified time and content hash of the translation file
+ * it was created from. Reading a valid snapshot is a lot cheaper than parsing the translation file again,
+ * any stale or unreadable snapshot is ignored and replaced by a new one.</p>
+ * 
+ * <p>The least recently used snapshots are evicted whenever the total size of the cache exceeds the
+ * configured maximum size.</p>
+ */
+public class ResourceCache {
+	private final static int MAGIC = 0x49313843;
+	private final static int VERSION = 2;
+	private final static String SNAPSHOT_EXTENSION = ".bin";
+	private final static Charset ENCODING = Charset.forName("UTF-8");
+	private final Path dir;
+	private final long maxSize;
+	
+	/**
+	 * Defines a function which loads the translations of a file when no valid snapshot is available.
+	 */
+	public interface Loader {
+		SortedMap<String,String> load(Path path, Set<String> arrayKeys) throws IOException;
+	}
+	
+	/**
+	 * Creates a new cache.
+	 * 
+	 * @param 	dir the directory to store the snapshots in.
+	 * @param 	maxSize the maximum total size in bytes of the snapshots, zero disables the cache.
+	 */
+	public ResourceCache(Path dir, long maxSize) {
+		this.dir = dir;
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * Reads the translations of the given file from its snapshot. If there is no valid snapshot, the
+	 * translations will be read by the given loader and a new snapshot will be stored.
+	 * 
+	 * @param 	path the path of the translation file.
+	 * @param 	arrayKeys the set to add the keys of the arrays of the translation file to.
+	 * @param 	loader the loader to use when there is no valid snapshot.
+	 * @return 	the translations.
+	 * @throws 	IOException if an I/O error occurs reading the translation file.
+	 */
+	public SortedMap<String,String> read(Path path, Set<String> arrayKeys, Loader loader) throws IOException {
+		return read(path, null, arrayKeys, loader);
+	}
+	
+	/**
+	 * Reads the translations of the given file from its snapshot, like {@link #read(Path, Set, Loader)}, 
+	 * using the given hash of the file instead of reading the file to hash it once more.
+	 * 
+	 * @param 	path the path of the translation file.
+	 * @param 	hash the hash of the content of the file, as computed by {@link Resources#hash(Path)}, or 
+	 * 			{@code null} to compute it.
+	 * @param 	arrayKeys the set to add the keys of the arrays of the translation file to.
+	 * @param 	loader the loader to use when there is no valid snapshot.
+	 * @return 	the translations.
+	 * @throws 	IOException if an I/O error occurs reading the translation file.
+	 */
+	public SortedMap<String,String> read(Path path, HashCode hash, Set<String> arrayKeys, Loader loader) throws IOException {
+		if (maxSize <= 0) {
+			return loader.load(path, arrayKeys);
+		}
+		Path absolutePath = path.toAbsolutePath();
+		Fingerprint fingerprint = new Fingerprint(absolutePath, hash);
+		Path snapshot = getSnapshotPath(absolutePath);
+		SortedMap<String,String> translations = readSnapshot(snapshot, fingerprint, arrayKeys);
+		if (translations != null) {
+			touch(snapshot);
+			return translations;
+		}
+		Set<String> loadedArrayKeys = Sets.newTreeSet();
+		translations = loader.load(path, loadedArrayKeys);
+		arrayKeys.addAll(loadedArrayKeys);
+		try {
+			writeSnapshot(snapshot, fingerprint, translations, loadedArrayKeys);
+			evict();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return translations;
+	}
+	
+	/**
+	 * Removes all snapshots from the cache.
+	 */
+	public synchronized void clear() {
+		listSnapshots().forEach(this::delete);
+	}
+	
+	private Path getSnapshotPath(Path path) {
+		return dir.resolve(Hashing.sha1().hashString(path.toString(), ENCODING).toString() + SNAPSHOT_EXTENSION);
+	}
+	
+	private SortedMap<String,String> readSnapshot(Path snapshot, Fingerprint fingerprint, Set<String> arrayKeys) {
+		if (!Files.isRegularFile(snapshot)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !fingerprint.equals(new Fingerprint(in))) {
+				return null;
+			}
+			int count = in.readInt();
+			ImmutableSortedMap.Builder<String,String> builder = ImmutableSortedMap.naturalOrder();
+			String key = "";
+			for (int i = 0; i < count; i++) {
+				// Keys are sorted, so each key is stored as the length of the prefix it shares with the previous key plus the rest of the key
+				int prefixLength = in.readInt();
+				key = key.substring(0, prefixLength) + readString(in);
+				builder.put(KeyPool.shared().intern(key), readString(in));
+			}
+			int arrayCount = in.readInt();
+			Set<String> snapshotArrayKeys = Sets.newHashSet();
+			for (int i = 0; i < arrayCount; i++) {
+				snapshotArrayKeys.add(KeyPool.shared().intern(readString(in)));
+			}
+			arrayKeys.addAll(snapshotArrayKeys);
+			return new VersionedSortedMap<>(builder.build());
+		} catch (Exception e) {
+			e.printStackTrace();
+			delete(snapshot);
+			return null;
+		}
+	}
+	
+	private void writeSnapshot(Path snapshot, Fingerprint fingerprint, SortedMap<String,String> translations, 
+			Set<String> arrayKeys) throws IOException {
+		Files.createDirectories(dir);
+		Path tempFile = Files.createTempFile(dir, null, null);
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				fingerprint.write(out);
+				out.writeInt(translations.size());
+				String previousKey = "";
+				for (Map.Entry<String,String> entry : translations.entrySet()) {
+					String key = entry.getKey();
+					int prefixLength = 0;
+					int maxPrefixLength = Math.min(key.length(), previousKey.length());
+					while (prefixLength < maxPrefixLength && key.charAt(prefixLength) == previousKey.charAt(prefixLength)) {
+						prefixLength++;
+					}
+					// Do not split a surrogate pair
+					if (prefixLength > 0 && Character.isHighSurrogate(key.charAt(prefixLength-1))) {
+						prefixLength--;
+					}
+					out.writeInt(prefixLength);
+					writeString(out, key.substring(prefixLength));
+					writeString(out, entry.getValue());
+					previousKey = key;
+				}
+				out.writeInt(arrayKeys.size());
+				for (String arrayKey : arrayKeys) {
+					writeString(out, arrayKey);
+				}
+			}
+			Files.move(tempFile, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+	
+	private synchronized void evict() {
+		List<Path> snapshots = listSnapshots().stream()
+				.sorted((a, b) -> Long.compare(lastModified(b), lastModified(a)))
+				.collect(Collectors.toList());
+		long totalSize = 0;
+		for (Path snapshot : snapshots) {
+			totalSize += size(snapshot);
+			if (totalSize > maxSize) {
+				delete(snapshot);
+			}
+		}
+	}
+	
+	private List<Path> listSnapshots() {
+		if (!Files.isDirectory(dir)) {
+			return Arrays.asList();
+		}
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(p -> p.getFileName().toString().endsWith(SNAPSHOT_EXTENSION)).collect(Collectors.toList());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return Arrays.asList();
+		}
+	}
+	
+	private void touch(Path path) {
+		try {
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private long lastModified(Path path) {
+		try {
+			return Files.getLastModifiedTime(path).toMillis();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+	
+	private long size(Path path) {
+		try {
+			return Files.size(path);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+	
+	private void delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, ENCODING);
+	}
+	
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(ENCODING);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * The values a snapshot is keyed by.
+	 */
+	private static class Fingerprint {
+		private final String path;
+		private final long size;
+		private final long lastModified;
+		private final byte[] hash;
+		
+		public Fingerprint(Path path, HashCode hash) throws IOException {
+			if (!Files.isRegularFile(path)) {
+				throw new NoSuchFileException(path.toString());
+			}
+			this.path = path.toString();
+			this.size = Files.size(path);
+			this.lastModified = Files.getLastModifiedTime(path).toMillis();
+			this.hash = (hash != null ? hash : Resources.hash(path)).asBytes();
+		}
+		
+		public Fingerprint(DataInputStream in) throws IOException {
+			this.path = readString(in);
+			this.size = in.readLong();
+			this.lastModified = in.readLong();
+			this.hash = new byte[in.readInt()];
+			in.readFully(hash);
+		}
+		
+		public void write(DataOutputStream out) throws IOException {
+			writeString(out, path);
+			out.writeLong(size);
+			out.writeLong(lastModified);
+			out.writeInt(hash.length);
+			out.write(hash);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Fingerprint)) {
+				return false;
+			}
+			Fingerprint other = (Fingerprint) obj;
+			return path.equals(other.path) && size == other.size && lastModified == other.lastModified
+					&& Arrays.equals(hash, other.hash);
+		}
+		
+		@Override
+		public int hashCode() {
+			return path.hashCode();
+		}
+	}
+}
@@ -1,30 +1,50 @@
 package com.ejie.uda.jsonI18nEditor.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.lang3.StringEscapeUtils;
-import org.apache.commons.lang3.StringUtils;
 
 import com.ejie.uda.jsonI18nEditor.Resource;
 import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 
 /**
  * This class provides utility functions for {@link Resource}s.
@@ -34,9 +54,17 @@ import com.google.gson.JsonPrimitive;
 public final class Resources {
 	private final static String RESOURCE_FILENAME = "translations";
 	private final static Charset DEFAULT_ENCODING = Charset.forName("UTF-8");
+	private final static HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+	private final static long MAPPED_READ_THRESHOLD = 32 * 1024 * 1024;
+	private final static int BUFFER_SIZE = 64 * 1024;
+	private final static String JSON_INDENT = "  ";
+	private final static String ES6_PREFIX = "export default ";
+	private final static String ES6_SUFFIX = ";";
+	private final static String TEMP_FILE_SUFFIX = ".tmp";
 //	private final static String LOCALE_REGEX = "[a-z]{2}(_[a-z]{2})?";
 	private final static String LOCALE_REGEX = "(.*)(.i18n)(_[a-z]*).json";
-	private final static String BUNDLE_REGEX = "(.i18n)(_[a-z]*).json";
+	private final static Pattern JSON_RESOURCE_PATTERN = Pattern.compile(LOCALE_REGEX);
+	private final static Pattern ES6_RESOURCE_PATTERN = Pattern.compile("^(?i:" + LOCALE_REGEX + ")$");
 	
 	/**
 	 * Checks whether the given path is a valid resource path.
@@ -79,12 +107,46 @@ public final class Resources {
 	}
 	
 	public static boolean isJsonResource(Path path, String bundle) {
-		String  regex = bundle != null?"("+bundle+")"+BUNDLE_REGEX:LOCALE_REGEX;
-		
-		return Pattern.matches(regex, path.getFileName().toString())
+		return isJsonResourceName(path.getFileName().toString(), bundle)
 				&& Files.isRegularFile(path);
 	}
 	
+	/**
+	 * Checks whether the given file name is a valid JSON resource file name, like 'x21aApp.i18n_es.json'.
+	 * 
+	 * @param 	fileName the file name to check.
+	 * @param 	bundle the name of the bundle the file has to belong to, or {@code null} for any bundle.
+	 * @return 	whether the given file name is a valid JSON resource file name.
+	 */
+	public static boolean isJsonResourceName(String fileName, String bundle) {
+		Matcher matcher = JSON_RESOURCE_PATTERN.matcher(fileName);
+		return matcher.matches() && (bundle == null || matcher.group(1).equals(bundle));
+	}
+	
+	/**
+	 * Gets the name of the bundle of the given resource file name, which is the part of the name 
+	 * before the locale, like 'x21aApp' for 'x21aApp.i18n_es.json'. The names of ES6 resources are 
+	 * matched regardless of case, like 'x21aApp' for 'x21aApp.i18n_ES.json'.
+	 * 
+	 * @param 	fileName the file name.
+	 * @return 	the name of the bundle, or {@code null} if the name is not a valid resource file name.
+	 */
+	public static String getBundleName(String fileName) {
+		Matcher matcher = matchResourceName(fileName);
+		return matcher != null ? matcher.group(1) : null;
+	}
+	
+	/**
+	 * Gets the locale of the given resource file name, like 'es' for 'x21aApp.i18n_es.json'.
+	 * 
+	 * @param 	fileName the file name.
+	 * @return 	the locale, or {@code null} if the name is not a valid resource file name.
+	 */
+	public static String getLocaleName(String fileName) {
+		Matcher matcher = matchResourceName(fileName);
+		return matcher != null ? matcher.group(3).substring(1) : null;
+	}
+	
 	/**
 	 * Checks whether the given path is a valid ES6 resource path.
 	 * A valid ES6 resource path is of the form 'en_US/translations.js'.
@@ -97,8 +159,8 @@ public final class Resources {
 	}
 	
 	public static boolean isEs6Resource(Path path, String bundle) {
-		return Files.isDirectory(path) 
-				&& Pattern.matches("^(?i:" + LOCALE_REGEX + ")$", path.getFileName().toString())
+		return ES6_RESOURCE_PATTERN.matcher(path.getFileName().toString()).matches()
+				&& Files.isDirectory(path)
 				&& Files.isRegularFile(Paths.get(path.toString(), RESOURCE_FILENAME + ".js"));
 	}
 	
@@ -111,6 +173,36 @@ public final class Resources {
 	 * @throws 	IOException if an I/O error occurs reading the file.
 	 */
 	public static Resource read(Path path) throws IOException {
+		return read(path, null);
+	}
+	
+	/**
+	 * Creates a new {@link Resource} from the given resource path, reading the translations from the 
+	 * given cache when it contains a valid snapshot of the file.
+	 * If the path is not a valid resource path, {@code null} will be returned.
+	 * 
+	 * @param 	path the path to read.
+	 * @param 	cache the cache to read the translations from, or {@code null} to always read the file.
+	 * @return	the resource.
+	 * @throws 	IOException if an I/O error occurs reading the file.
+	 */
+	public static Resource read(Path path, ResourceCache cache) throws IOException {
+		return read(path, cache, null);
+	}
+	
+	/**
+	 * Creates a new {@link Resource} from the given resource path, reading the translations from the 
+	 * given cache when it contains a valid snapshot of the file with the given hash.
+	 * If the path is not a valid resource path, {@code null} will be returned.
+	 * 
+	 * @param 	path the path to read.
+	 * @param 	cache the cache to read the translations from, or {@code null} to always read the file.
+	 * @param 	hash the hash of the file as computed by {@link #hash(Path)}, or {@code null} to let the 
+	 * 			cache compute it.
+	 * @return	the resource.
+	 * @throws 	IOException if an I/O error occurs reading the file.
+	 */
+	public static Resource read(Path path, ResourceCache cache, HashCode hash) throws IOException {
 		if (!isResource(path)) return null;
 		ResourceType type;
 		Path filePath;
@@ -123,12 +215,70 @@ public final class Resources {
 //			filePath = Paths.get(path.toString(), RESOURCE_FILENAME + ".json");
 			filePath = Paths.get(path.toString());
 		}
-		String content = Files.lines(filePath, DEFAULT_ENCODING).collect(Collectors.joining());
-		if (type == ResourceType.ES6) {
-			content = es6ToJson(content);
+		SortedMap<String,String> translations;
+		SortedSet<String> arrayKeys = Sets.newTreeSet();
+		if (cache == null) {
+			translations = readTranslations(type, filePath, arrayKeys);
+		} else {
+			translations = cache.read(filePath, hash, arrayKeys, (p, keys) -> readTranslations(type, p, keys));
 		}
 		Locale locale = parseLocale(path.getFileName().toString());
-		return new Resource(type, filePath, locale, fromJson(content));
+		return new Resource(type, filePath, locale, translations, arrayKeys);
+	}
+	
+	/**
+	 * Creates a new {@link Resource} from the given resource path which only reads the keys of the translations
+	 * up front. The value of a translation is read from disk when it is requested for the first time, 
+	 * see {@link LazyTranslationMap}. Resources which can not be indexed are read completely.
+	 * If the path is not a valid resource path, {@code null} will be returned.
+	 * 
+	 * @param 	path the path to read.
+	 * @return	the resource.
+	 * @throws 	IOException if an I/O error occurs reading the file.
+	 */
+	public static Resource readLazy(Path path) throws IOException {
+		return readLazy(path, null);
+	}
+	
+	/**
+	 * Creates a new {@link Resource} from the given resource path which only reads the keys of the translations
+	 * up front, like {@link #readLazy(Path)}. The given listener is notified of the keys of the translations 
+	 * which are found to be removed from the file on disk before their value has been read, see 
+	 * {@link LazyTranslationMap#setRemovalListener(Consumer)}.
+	 * 
+	 * @param 	path the path to read.
+	 * @param 	removalListener the listener to notify of removed translations, or {@code null}.
+	 * @return	the resource.
+	 * @throws 	IOException if an I/O error occurs reading the file.
+	 */
+	public static Resource readLazy(Path path, Consumer<Set<String>> removalListener) throws IOException {
+		if (!isJsonResource(path)) return read(path);
+		Path filePath = Paths.get(path.toString());
+		SortedMap<String,String> translations;
+		SortedSet<String> arrayKeys = Sets.newTreeSet();
+		try {
+			LazyTranslationMap lazyTranslations = new LazyTranslationMap(filePath);
+			lazyTranslations.setRemovalListener(removalListener);
+			translations = lazyTranslations;
+			arrayKeys.addAll(lazyTranslations.getArrayKeys());
+		} catch (MalformedJsonException | IllegalArgumentException e) {
+			// Content which can not be indexed is left to the complete reader to either read or reject
+			translations = readTranslations(ResourceType.JSON, filePath, arrayKeys);
+		}
+		Locale locale = parseLocale(path.getFileName().toString());
+		return new Resource(ResourceType.JSON, filePath, locale, translations, arrayKeys);
+	}
+	
+	/**
+	 * Computes a hash of the content of the given resource file, which can be used to detect whether 
+	 * the file has been changed since it was read.
+	 * 
+	 * @param 	path the path of the file.
+	 * @return 	the hash of the file content.
+	 * @throws 	IOException if an I/O error occurs reading the file.
+	 */
+	public static HashCode hash(Path path) throws IOException {
+		return com.google.common.io.Files.asByteSource(path.toFile()).hash(HASH_FUNCTION);
 	}
 	
 	/**
@@ -139,15 +289,112 @@ public final class Resources {
 	 * @throws 	IOException if an I/O error occurs writing the file.
 	 */
 	public static void write(Resource resource, boolean prettyPrinting) throws IOException {
-		String content = toJson(resource.getTranslations(), prettyPrinting);
-		if (resource.getType() == ResourceType.ES6) {
-			content = jsonToEs6(content);
-		}
-		if (!Files.exists(resource.getPath())) {
-			Files.createDirectories(resource.getPath().getParent());
-			Files.createFile(resource.getPath());
+		write(resource.getType(), resource.getPath(), resource.getTranslations(), resource.getArrayKeys(), prettyPrinting);
+	}
+	
+	/**
+	 * Writes the translations of the given snapshot to its resource file. When the resource file still has 
+	 * the given hash, only the changed translations are written and the rest of the file is copied from 
+	 * the previous file as it is, see {@link TranslationPatchWriter}. Otherwise the file is written in full, 
+	 * see {@link #write(ResourceType, Path, SortedMap, Set, boolean)}.
+	 * 
+	 * @param 	snapshot the snapshot to write.
+	 * @param 	hash the hash of the resource file when the resource was last read or saved, or {@code null} 
+	 * 			if unknown.
+	 * @param   prettyPrinting whether to pretty print the contents
+	 * @return 	the hash of the content written, as computed by {@link #hash(Path)}.
+	 * @throws 	IOException if an I/O error occurs writing the file.
+	 */
+	public static HashCode write(Resource.Snapshot snapshot, HashCode hash, boolean prettyPrinting) throws IOException {
+		return write(snapshot, hash, prettyPrinting, ImmutableList.of());
+	}
+	
+	/**
+	 * Writes the translations of the given snapshot to its resource file, see 
+	 * {@link #write(Resource.Snapshot, HashCode, boolean)}, and to a file in each of the given output 
+	 * formats next to it. All files which are written in full are written by a single pass over the 
+	 * translations.
+	 * 
+	 * @param 	snapshot the snapshot to write.
+	 * @param 	hash the hash of the resource file when the resource was last read or saved, or {@code null} 
+	 * 			if unknown.
+	 * @param   prettyPrinting whether to pretty print the contents
+	 * @param 	outputFormats the additional formats to write.
+	 * @return 	the hash of the content written to the resource file, as computed by {@link #hash(Path)}.
+	 * @throws 	IOException if an I/O error occurs writing the files.
+	 */
+	public static HashCode write(Resource.Snapshot snapshot, HashCode hash, boolean prettyPrinting, 
+			List<OutputFormat> outputFormats) throws IOException {
+		PendingWrite pendingWrite = prepareWrite(snapshot, hash, prettyPrinting, outputFormats);
+		pendingWrite.commit();
+		return pendingWrite.getHash();
+	}
+	
+	/**
+	 * Writes the translations of the given snapshot like {@link #write(Resource.Snapshot, HashCode, boolean, List)}, 
+	 * but only to temporary files next to the files, which replace the files once the returned write is 
+	 * committed.
+	 * 
+	 * @param 	snapshot the snapshot to write.
+	 * @param 	hash the hash of the resource file when the resource was last read or saved, or {@code null} 
+	 * 			if unknown.
+	 * @param   prettyPrinting whether to pretty print the contents
+	 * @param 	outputFormats the additional formats to write.
+	 * @return 	the pending write.
+	 * @throws 	IOException if an I/O error occurs writing the files.
+	 */
+	public static PendingWrite prepareWrite(Resource.Snapshot snapshot, HashCode hash, boolean prettyPrinting, 
+			List<OutputFormat> outputFormats) throws IOException {
+		Resource resource = snapshot.getResource();
+		Path path = resource.getPath();
+		List<Path> paths = Lists.newArrayList();
+		List<OutputFormat> formats = Lists.newArrayList();
+		paths.add(path);
+		formats.add(OutputFormat.of(resource.getType(), prettyPrinting));
+		for (OutputFormat format : outputFormats) {
+			paths.add(format.resolve(path));
+			formats.add(format);
 		}
-		Files.write(resource.getPath(), Lists.newArrayList(content), DEFAULT_ENCODING);
+		boolean patch = resource.getType() == ResourceType.JSON && hash != null && Files.isRegularFile(path);
+		return prepareWrite(paths, channels -> {
+			if (!patch || !TranslationPatchWriter.write(path, hash, snapshot.getTranslations(), 
+					snapshot.getArrayKeys(), snapshot.getChangedKeys(), prettyPrinting, channels.get(0))) {
+				return writeContent(formats, snapshot.getTranslations(), snapshot.getArrayKeys(), channels);
+			}
+			if (channels.size() > 1) {
+				writeContent(formats.subList(1, formats.size()), snapshot.getTranslations(), 
+						snapshot.getArrayKeys(), channels.subList(1, channels.size()));
+			}
+			// The copied content does not pass through this process, so the file is read back to hash it
+			FileChannel channel = channels.get(0);
+			Hasher hasher = HASH_FUNCTION.newHasher();
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			channel.position(0);
+			while (channel.read(buffer) > 0) {
+				hasher.putBytes(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+			return hasher.hash();
+		});
+	}
+	
+	/**
+	 * Writes the given translations to a resource file. The content is written to a temporary file 
+	 * next to the resource file first, which then replaces the resource file by an atomic move where 
+	 * supported. The resource file is never left half written, even when the editor crashes.
+	 * 
+	 * @param 	type the type of the resource.
+	 * @param 	path the path of the resource file.
+	 * @param 	translations the translations to write.
+	 * @param 	arrayKeys the keys of the translations which are written as arrays.
+	 * @param   prettyPrinting whether to pretty print the contents
+	 * @return 	the hash of the content written, as computed by {@link #hash(Path)}.
+	 * @throws 	IOException if an I/O error occurs writing the file.
+	 */
+	public static HashCode write(ResourceType type, Path path, SortedMap<String,String> translations, 
+			Set<String> arrayKeys, boolean prettyPrinting) throws IOException {
+		return write(ImmutableList.of(path), channels -> writeContent(
+				ImmutableList.of(OutputFormat.of(type, prettyPrinting)), translations, arrayKeys, channels));
 	}
 	
 	/**
@@ -187,6 +434,153 @@ public final class Resources {
 		return resource;
 	}
 	
+	/**
+	 * Reads the translations of the given file.
+	 * 
+	 * @param 	type the type of the resource.
+	 * @param 	filePath the path of the file to read.
+	 * @param 	arrayKeys the set to add the keys of the arrays of the file to.
+	 * @return	the flattened translations.
+	 * @throws 	IOException if an I/O error occurs or the content is not valid JSON.
+	 */
+	static SortedMap<String,String> readTranslations(ResourceType type, Path filePath, Set<String> arrayKeys) throws IOException {
+		if (type == ResourceType.ES6) {
+			try (Reader reader = new Es6ModuleReader(newReader(filePath))) {
+				return fromJson(reader, arrayKeys);
+			}
+		}
+		try (Reader reader = newReader(filePath)) {
+			return fromJson(reader, arrayKeys);
+		}
+	}
+	
+	/**
+	 * Opens a reader for the given file. Files larger than {@value #MAPPED_READ_THRESHOLD} bytes are
+	 * decoded directly from a memory mapped view of the file instead of being copied to the heap.
+	 * 
+	 * @param 	path the path of the file to read.
+	 * @return	the reader.
+	 * @throws 	IOException if an I/O error occurs opening the file.
+	 */
+	private static Reader newReader(Path path) throws IOException {
+		if (Files.size(path) > MAPPED_READ_THRESHOLD) {
+			return new MappedFileReader(path, DEFAULT_ENCODING);
+		}
+		return Files.newBufferedReader(path, DEFAULT_ENCODING);
+	}
+	
+	/**
+	 * Defines a function which writes the content of a number of files to their channels.
+	 */
+	private interface ContentWriter {
+		/**
+		 * @return the hash of the content written to the first channel.
+		 */
+		HashCode write(List<FileChannel> channels) throws IOException;
+	}
+	
+	/**
+	 * Writes a number of files by the given content writer to temporary files, which replace the files 
+	 * once they have all been written completely.
+	 */
+	private static HashCode write(List<Path> paths, ContentWriter contentWriter) throws IOException {
+		PendingWrite pendingWrite = prepareWrite(paths, contentWriter);
+		pendingWrite.commit();
+		return pendingWrite.getHash();
+	}
+	
+	/**
+	 * Writes a number of files by the given content writer to temporary files next to them, without 
+	 * replacing the files yet.
+	 */
+	private static PendingWrite prepareWrite(List<Path> paths, ContentWriter contentWriter) throws IOException {
+		List<Path> tempPaths = Lists.newArrayList();
+		List<FileChannel> channels = Lists.newArrayList();
+		try {
+			for (Path path : paths) {
+				Path dir = path.toAbsolutePath().getParent();
+				Files.createDirectories(dir);
+				Path tempPath = dir.resolve(path.getFileName() + TEMP_FILE_SUFFIX);
+				tempPaths.add(tempPath);
+				channels.add(FileChannel.open(tempPath, StandardOpenOption.CREATE, 
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE));
+			}
+			HashCode hash = contentWriter.write(channels);
+			long size = 0;
+			for (FileChannel channel : channels) {
+				size += channel.size();
+				channel.close();
+			}
+			return new PendingWrite(paths, tempPaths, hash, size);
+		} catch (IOException | RuntimeException e) {
+			for (FileChannel channel : channels) {
+				try {
+					channel.close();
+				} catch (IOException closeException) {
+					e.addSuppressed(closeException);
+				}
+			}
+			for (Path tempPath : tempPaths) {
+				Files.deleteIfExists(tempPath);
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Writes the given translations in each of the given formats to the channel at the same index, by 
+	 * a single pass over the translations.
+	 */
+	private static HashCode writeContent(List<OutputFormat> formats, SortedMap<String,String> translations, 
+			Set<String> arrayKeys, List<FileChannel> channels) throws IOException {
+		HashingOutputStream hashingOut = new HashingOutputStream(HASH_FUNCTION, Channels.newOutputStream(channels.get(0)));
+		List<Writer> writers = Lists.newArrayList();
+		List<GZIPOutputStream> gzipOuts = Lists.newArrayList();
+		List<JsonWriter> jsonWriters = Lists.newArrayList();
+		for (int i = 0; i < formats.size(); i++) {
+			OutputFormat format = formats.get(i);
+			OutputStream out = i == 0 ? hashingOut : Channels.newOutputStream(channels.get(i));
+			if (format.isGzip()) {
+				GZIPOutputStream gzipOut = new GZIPOutputStream(out, BUFFER_SIZE);
+				gzipOuts.add(gzipOut);
+				out = gzipOut;
+			}
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, DEFAULT_ENCODING.newEncoder()), BUFFER_SIZE);
+			if (format.getType() == ResourceType.ES6) {
+				writer.write(ES6_PREFIX);
+			}
+			JsonWriter jsonWriter = new JsonWriter(writer);
+			if (format.isPrettyPrinting()) {
+				jsonWriter.setIndent(JSON_INDENT);
+			}
+			writers.add(writer);
+			jsonWriters.add(jsonWriter);
+		}
+		TranslationWriter.write(translations, arrayKeys, 
+				jsonWriters.size() == 1 ? jsonWriters.get(0) : new FanOutJsonWriter(jsonWriters));
+		for (int i = 0; i < formats.size(); i++) {
+			Writer writer = writers.get(i);
+			if (formats.get(i).getType() == ResourceType.ES6) {
+				writer.write(ES6_SUFFIX);
+			}
+			writer.write(System.lineSeparator());
+			writer.flush();
+		}
+		// The channels are closed by the caller, so the compressed streams are only finished
+		for (GZIPOutputStream gzipOut : gzipOuts) {
+			gzipOut.finish();
+		}
+		return hashingOut.hash();
+	}
+	
+	private static Matcher matchResourceName(String fileName) {
+		Matcher matcher = JSON_RESOURCE_PATTERN.matcher(fileName);
+		if (!matcher.matches()) {
+			matcher = ES6_RESOURCE_PATTERN.matcher(fileName);
+		}
+		return matcher.matches() ? matcher : null;
+	}
+	
 	private static Locale parseLocale(String locale) {
 		String[] localeParts = locale.split("_");
 		if (localeParts.length > 1) {
@@ -196,143 +590,212 @@ public final class Resources {
 		}
 	}
 	
-	private static SortedMap<String,String> fromJson(String json) {
-		SortedMap<String,String> result = Maps.newTreeMap();
-		JsonElement elem = new JsonParser().parse(json);
-		fromJson(null, elem, result);
+	/**
+	 * Reads the JSON content of the given reader token by token, flattening it directly into 
+	 * a sorted map of translations without building an intermediate JSON tree.
+	 * 
+	 * <p>The type of the nodes is recorded while reading, as the keys alone can not tell an array from an 
+	 * object of which the member names look like array indexes. Every key which is not a translation key 
+	 * is the key of an object, unless it is one of the array keys.</p>
+	 * 
+	 * @param 	in the reader to read the JSON content from.
+	 * @param 	arrayKeys the set to add the keys of the arrays to.
+	 * @return	the flattened translations.
+	 * @throws 	IOException if an I/O error occurs or the content is not valid JSON.
+	 */
+	private static SortedMap<String,String> fromJson(Reader in, Set<String> arrayKeys) throws IOException {
+		SortedMap<String,String> result = new VersionedSortedMap<>();
+		JsonReader reader = new JsonReader(in);
+		reader.setLenient(true);
+		fromJson(new KeyPathBuilder(), reader, result, arrayKeys);
+		if (reader.peek() != JsonToken.END_DOCUMENT) {
+			throw new MalformedJsonException("Did not consume the entire document.");
+		}
 		return result;
 	}
 	
-	private static void fromJson(String key, JsonElement elem, Map<String,String> content) {
-		if (elem.isJsonObject()) {
-			elem.getAsJsonObject().entrySet().forEach(entry -> {
-				String newKey = key == null ? entry.getKey() : TranslationKeys.create(key, entry.getKey());
-				fromJson(newKey, entry.getValue(), content);
-			});
-		} else if (elem.isJsonArray()) {
-			
-			JsonArray jsonArray = elem.getAsJsonArray();
-			
-			
-			// Calculos para el left pad del indice del array
-			int arraySize = jsonArray.size();
-			int digitNumbers = String.valueOf(arraySize-1).length();
-			
-			for (int i=0;i<jsonArray.size();i++) {
-				String strIndex = StringUtils.leftPad(String.valueOf(i), digitNumbers,"0");
-				JsonElement jsonElement = jsonArray.get(i);
-				String newKey = key +".["+strIndex+"]";
-				if (jsonElement.isJsonObject()) {
-					jsonElement.getAsJsonObject().entrySet().forEach(entry -> {
-						String newKey2 =  TranslationKeys.create(newKey, entry.getKey());
-						fromJson(newKey2, entry.getValue(), content);
-					});
-				}else{
-					fromJson(newKey, jsonElement, content);
+	private static void fromJson(KeyPathBuilder key, JsonReader reader, Map<String,String> content, 
+			Set<String> arrayKeys) throws IOException {
+		switch (reader.peek()) {
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				while (reader.hasNext()) {
+					key.push(reader.nextName());
+					fromJson(key, reader, content, arrayKeys);
+					key.pop();
 				}
-				
-				
+				reader.endObject();
+				break;
+			case BEGIN_ARRAY:
+				ArrayElements<String> elements = new ArrayElements<>(key);
+				reader.beginArray();
+				while (reader.hasNext()) {
+					key.pushIndex(elements.size());
+					fromJson(key, reader, elements.getContent(), elements.getArrayKeys());
+					key.pop();
+					elements.endElement();
+				}
+				reader.endArray();
+				elements.putAll(content, arrayKeys);
+				break;
+			case STRING:
+			case NUMBER:
+				content.put(toTranslationKey(key), toTranslationValue(reader.nextString()));
+				break;
+			case BOOLEAN:
+				content.put(toTranslationKey(key), String.valueOf(reader.nextBoolean()));
+				break;
+			case NULL:
+				reader.nextNull();
+				content.put(toTranslationKey(key), "");
+				break;
+			default:
+				throw new IllegalArgumentException("Found invalid json element.");
+		}
+	}
+	
+	/**
+	 * Reads the keys of the translations of the given JSON file together with the byte offset of 
+	 * each value in the file.
+	 * 
+	 * @param 	path the path of the file to read.
+	 * @param 	arrayKeys the set to add the keys of the arrays of the file to.
+	 * @return	the byte offsets of the values by translation key.
+	 * @throws 	IOException if an I/O error occurs or the content is not valid JSON.
+	 */
+	static SortedMap<String,Long> index(Path path, Set<String> arrayKeys) throws IOException {
+		SortedMap<String,Long> result = Maps.newTreeMap();
+		try (OffsetJsonReader reader = new OffsetJsonReader(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE), 0)) {
+			index(new KeyPathBuilder(), reader, result, arrayKeys);
+			if (reader.peek() != JsonToken.END_DOCUMENT) {
+				throw new MalformedJsonException("Did not consume the entire document.");
 			}
-			
-//			elem.getAsJsonObject().entrySet().forEach(entry -> {
-//				String newKey = key == null ? entry.getKey() : TranslationKeys.create(key, entry.getKey());
-//				fromJson(newKey, entry.getValue(), content);
-//			});
-			
-		} else if (elem.isJsonPrimitive()) {
-			content.put(key, StringEscapeUtils.unescapeJava(elem.getAsString()));
-		} else if (elem.isJsonNull()) {
-			content.put(key, "");
-		} else {
-			throw new IllegalArgumentException("Found invalid json element.");
 		}
+		return result;
 	}
 	
-	private static String toJson(Map<String,String> translations, boolean prettyPrinting) {
-		List<String> keys = Lists.newArrayList(translations.keySet());
-		JsonElement elem = toJson(translations, null, keys);
-		GsonBuilder builder = new GsonBuilder().disableHtmlEscaping();
-		if (prettyPrinting) {
-			builder.setPrettyPrinting();
+	/**
+	 * Reads a single translation value from the given byte offset of a JSON file.
+	 * 
+	 * @param 	path the path of the file to read.
+	 * @param 	offset the byte offset of the value.
+	 * @return	the translation value.
+	 * @throws 	IOException if an I/O error occurs or there is no valid value at the given offset.
+	 */
+	static String readValue(Path path, long offset) throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			channel.position(offset);
+			OffsetJsonReader reader = new OffsetJsonReader(new BufferedInputStream(Channels.newInputStream(channel)), offset);
+			return toTranslationValue(reader.nextValue());
 		}
-		return builder.create().toJson(elem);
 	}
 	
-	private static JsonElement toJson(Map<String,String> translations, String key, List<String> keys) {
-		boolean allMatch = keys.size() > 0 && keys.stream().allMatch(elem -> Pattern.matches("\\[[0-9]*\\](\\..*)", elem));
-		boolean allMatchPrimitive = keys.size() > 0 && keys.stream().allMatch(elem -> Pattern.matches("\\[[0-9]*\\]", elem));
-		
-		
-		if (allMatch){
-			
-//			JsonObject object = new JsonObject();
-//			List<String> collect = keys.stream().map(elem -> translations.get(key+"."+elem)).collect(Collectors.toList());
-			
-			JsonArray array = new JsonArray();
-			
-			// FIXME: PARA OBJETOS JSON NO SOLO PRIMITIVAS
-			
-			Object[] array2 = keys.stream().map(e -> TranslationKeys.withoutLastPart(e)).distinct().toArray();
-			
-			if (allMatchPrimitive){
-				for (String arrayKey : keys) {
-						array.add(new JsonPrimitive(translations.get(key+"."+arrayKey)));
+	private static void index(KeyPathBuilder key, OffsetJsonReader reader, Map<String,Long> offsets, 
+			Set<String> arrayKeys) throws IOException {
+		switch (reader.peek()) {
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				while (reader.hasNext()) {
+					key.push(reader.nextName());
+					index(key, reader, offsets, arrayKeys);
+					key.pop();
 				}
-			}else{
-				Object[] arrayObj = keys.stream().map(e -> TranslationKeys.withoutLastPart(e)).distinct().toArray();
-				
-				for (Object object : arrayObj) {
-					String arrayKey = object.toString();
-					String subKey = TranslationKeys.create(key, arrayKey);
-					
-//					List<String> subKeys = TranslationKeys.extractChildKeys(keys, "[0]");
-									
-					
-					array.add(toJson(translations, subKey, TranslationKeys.extractChildKeys(keys, arrayKey)));
+				reader.endObject();
+				break;
+			case BEGIN_ARRAY:
+				ArrayElements<Long> elements = new ArrayElements<>(key);
+				reader.beginArray();
+				while (reader.hasNext()) {
+					key.pushIndex(elements.size());
+					index(key, reader, elements.getContent(), elements.getArrayKeys());
+					key.pop();
+					elements.endElement();
 				}
-			}
-//			for (String arrayKey : keys) {
-//				if (Pattern.matches("\\[[0-9]*\\]", arrayKey)){
-//					array.add(new JsonPrimitive(translations.get(key+"."+arrayKey)));
-//				}else{
-//					String subKey = TranslationKeys.create(key, arrayKey);
-//					
-////					List<String> subKeys = TranslationKeys.extractChildKeys(keys, "[0]");
-//									
-//					
-//					array.add(toJson(translations, TranslationKeys.withoutLastPart(subKey), TranslationKeys.extractChildKeys(keys, TranslationKeys.withoutLastPart(arrayKey))));
-//					
-//				}
-//			}
-			return array;	
-			
-//			object.add(TranslationKeys.lastPart(key), array);
-			
-//			return object;
-					
-		}
-		
-		if (keys.size() > 0) {
-			JsonObject object = new JsonObject();
-			TranslationKeys.uniqueRootKeys(keys).forEach(rootKey -> {
-				String subKey = TranslationKeys.create(key, rootKey);
-				List<String> subKeys = TranslationKeys.extractChildKeys(keys, rootKey);
-				object.add(rootKey, toJson(translations, subKey, subKeys));
-			});
-			return object;
+				reader.endArray();
+				elements.putAll(offsets, arrayKeys);
+				break;
+			case END_DOCUMENT:
+				throw new MalformedJsonException("Unexpected end of document.");
+			default:
+				offsets.put(toTranslationKey(key), reader.getPosition());
+				reader.skipValue();
 		}
-		
-		if (key == null) {
-			return new JsonObject();
+	}
+	
+	private static String toTranslationKey(KeyPathBuilder key) {
+		if (key.depth() == 0) {
+			throw new IllegalArgumentException("Found invalid json element.");
 		}
-		return new JsonPrimitive(translations.get(key));
+		return key.toString(KeyPool.shared());
 	}
 	
-	private static String es6ToJson(String content) {
-		return content.replaceAll("export +default", "").replaceAll("} *;", "}");
+	private static String toTranslationValue(String value) {
+		return value == null ? "" : StringEscapeUtils.unescapeJava(value);
 	}
 	
-	private static String jsonToEs6(String content) {
-		return "export default " + content + ";";
+	/**
+	 * Collects the flattened content of the elements of an array. The index of each element is left padded 
+	 * depending on the size of the array, which is only known at the end, so the keys of the elements are 
+	 * padded once all elements have been read. The same goes for the keys of any arrays within the elements.
+	 */
+	private static class ArrayElements<V> {
+		private final Map<String,V> content = Maps.newLinkedHashMap();
+		private final Set<String> arrayKeys = Sets.newLinkedHashSet();
+		private final String key;
+		private final int indexOffset;
+		private int[] ends = new int[16];
+		private int size;
+		
+		public ArrayElements(KeyPathBuilder key) {
+			// An array at the root of the content has no key, its elements are keyed like 'null.[index]'
+			this.key = key.depth() == 0 ? "null" : key.toString(KeyPool.shared());
+			this.indexOffset = key.nextIndexOffset();
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		public Map<String,V> getContent() {
+			return content;
+		}
+		
+		public Set<String> getArrayKeys() {
+			return arrayKeys;
+		}
+		
+		public void endElement() {
+			if (size == ends.length) {
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			ends[size++] = content.size();
+		}
+		
+		public void putAll(Map<String,V> target, Set<String> targetArrayKeys) {
+			if (size == 0) {
+				return;
+			}
+			int digits = KeyPathBuilder.digits(size - 1);
+			targetArrayKeys.add(key);
+			for (String arrayKey : arrayKeys) {
+				int index = Integer.parseInt(arrayKey.substring(indexOffset, arrayKey.indexOf(']', indexOffset)));
+				targetArrayKeys.add(pad(arrayKey, index, digits));
+			}
+			int element = 0;
+			int count = 0;
+			for (Map.Entry<String,V> entry : content.entrySet()) {
+				// The content of an element ends where the content of the next element starts
+				while (count == ends[element]) {
+					element++;
+				}
+				target.put(pad(entry.getKey(), element, digits), entry.getValue());
+				count++;
+			}
+		}
+		
+		private String pad(String elementKey, int index, int digits) {
+			String result = KeyPathBuilder.padIndex(elementKey, indexOffset, index, digits);
+			return result == elementKey ? result : KeyPool.shared().intern(result);
+		}
 	}
 }
@@ -0,0 +1,191 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+
+/**
+ * This class represents a pipeline which saves a number of resources together, like all modified
+ * locales of a workspace.
+ * 
+ * <p>The snapshots of the resources are serialized to temporary files on a bounded pool of threads,
+ * see {@link Resources#prepareWrite(Resource.Snapshot, HashCode, boolean, List)}. A single writer thread
+ * takes whatever has been serialized meanwhile as a batch, forces the files of the batch to disk, replaces
+ * the files and then forces every directory of the batch once, instead of once per file. A save is only
+ * reported done once its batch has been forced completely.</p>
+ * 
+ * <p>The bytes which have been serialized but not forced yet are in flight. Serializing waits while the
+ * bytes in flight exceed the configured limit, so saving hundreds of files does not pile up unwritten
+ * data faster than the disk takes it.</p>
+ */
+public class SavePipeline implements Closeable {
+	private final static int MAX_BATCH_SIZE = 64;
+	private final static Entry END = new Entry(null, null);
+	private final long maxBytesInFlight;
+	private final ExecutorService serializers;
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+	private final Thread writer;
+	private final Object lock = new Object();
+	private long bytesInFlight;
+	
+	/**
+	 * Creates a new pipeline and starts its writer thread.
+	 * 
+	 * @param 	threads the number of threads to serialize on.
+	 * @param 	maxBytesInFlight the number of bytes in flight above which serializing waits.
+	 */
+	public SavePipeline(int threads, long maxBytesInFlight) {
+		this.maxBytesInFlight = maxBytesInFlight;
+		this.serializers = Executors.newFixedThreadPool(threads);
+		this.writer = new Thread(this::runWriter, "save-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Saves the translations of the given snapshot to its resource file, and to a file in each of the
+	 * given output formats next to it.
+	 * 
+	 * @param 	snapshot the snapshot to save.
+	 * @param 	hash the hash of the resource file when the resource was last read or saved, or {@code null}
+	 * 			if unknown.
+	 * @param   prettyPrinting whether to pretty print the contents
+	 * @param 	outputFormats the additional formats to write.
+	 * @return 	the future hash of the content written to the resource file, as computed by {@link Resources#hash(Path)}.
+	 */
+	public Future<HashCode> submit(Resource.Snapshot snapshot, HashCode hash, boolean prettyPrinting,
+			List<OutputFormat> outputFormats) {
+		CompletableFuture<HashCode> future = new CompletableFuture<>();
+		serializers.execute(() -> {
+			try {
+				awaitCapacity();
+				PendingWrite pendingWrite = Resources.prepareWrite(snapshot, hash, prettyPrinting, outputFormats);
+				synchronized (lock) {
+					bytesInFlight += pendingWrite.getSize();
+				}
+				queue.add(new Entry(pendingWrite, future));
+			} catch (IOException | RuntimeException | InterruptedException e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * Gets the number of bytes which have been serialized but not forced to disk yet.
+	 * 
+	 * @return 	the number of bytes.
+	 */
+	public long getBytesInFlight() {
+		synchronized (lock) {
+			return bytesInFlight;
+		}
+	}
+	
+	/**
+	 * Waits until everything submitted has been saved and stops the pipeline.
+	 */
+	@Override
+	public void close() {
+		serializers.shutdown();
+		try {
+			serializers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			queue.add(END);
+			writer.join();
+		} catch (InterruptedException e) {
+			serializers.shutdownNow();
+			writer.interrupt();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void awaitCapacity() throws InterruptedException {
+		synchronized (lock) {
+			while (bytesInFlight >= maxBytesInFlight) {
+				lock.wait();
+			}
+		}
+	}
+	
+	private void runWriter() {
+		List<Entry> batch = Lists.newArrayList();
+		try {
+			boolean end = false;
+			while (!end) {
+				batch.add(queue.take());
+				queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+				end = batch.remove(END);
+				writeBatch(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// The pipeline has been closed while waiting for saves
+			batch.addAll(queue);
+			batch.remove(END);
+			batch.forEach(entry -> fail(entry, e));
+		}
+	}
+	
+	private void writeBatch(List<Entry> batch) {
+		List<Entry> written = Lists.newArrayList();
+		Set<Path> dirs = Sets.newLinkedHashSet();
+		long size = 0;
+		for (Entry entry : batch) {
+			size += entry.pendingWrite.getSize();
+			try {
+				entry.pendingWrite.force();
+				written.add(entry);
+			} catch (IOException | RuntimeException e) {
+				fail(entry, e);
+			}
+		}
+		for (Entry entry : Lists.newArrayList(written)) {
+			try {
+				entry.pendingWrite.move();
+				entry.pendingWrite.getPaths().forEach(path -> dirs.add(path.toAbsolutePath().getParent()));
+			} catch (IOException | RuntimeException e) {
+				written.remove(entry);
+				fail(entry, e);
+			}
+		}
+		PendingWrite.forceDirectories(dirs);
+		synchronized (lock) {
+			bytesInFlight -= size;
+			lock.notifyAll();
+		}
+		written.forEach(entry -> entry.future.complete(entry.pendingWrite.getHash()));
+	}
+	
+	private static void fail(Entry entry, Exception e) {
+		try {
+			entry.pendingWrite.discard();
+		} catch (IOException discardException) {
+			e.addSuppressed(discardException);
+		}
+		entry.future.completeExceptionally(e);
+	}
+	
+	private static class Entry {
+		private final PendingWrite pendingWrite;
+		private final CompletableFuture<HashCode> future;
+		
+		private Entry(PendingWrite pendingWrite, CompletableFuture<HashCode> future) {
+			this.pendingWrite = pendingWrite;
+			this.future = future;
+		}
+	}
+}
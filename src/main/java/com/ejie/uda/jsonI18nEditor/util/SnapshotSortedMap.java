@@ -0,0 +1,19 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.util.SortedMap;
+
+/**
+ * This interface represents a sorted map of which an immutable version can be taken in constant time.
+ * 
+ * @param 	<K> the type of the keys.
+ * @param 	<V> the type of the values.
+ */
+public interface SnapshotSortedMap<K,V> extends SortedMap<K,V> {
+	/**
+	 * Gets the current version of this map. The version is not affected by later changes of this map
+	 * and can be read by any thread.
+	 * 
+	 * @return 	the immutable version of this map.
+	 */
+	SortedMap<K,V> snapshot();
+}
@@ -0,0 +1,88 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * This class represents a sorted set view of the keys of a sorted map. Keys can be removed from the
+ * view by its iterator, if the map supports it.
+ * 
+ * @param 	<K> the type of the keys.
+ */
+public final class SortedKeySet<K> extends AbstractSet<K> implements SortedSet<K> {
+	private final SortedMap<K,?> map;
+	
+	public SortedKeySet(SortedMap<K,?> map) {
+		this.map = map;
+	}
+	
+	@Override
+	public Iterator<K> iterator() {
+		Iterator<? extends Map.Entry<K,?>> iterator = map.entrySet().iterator();
+		return new Iterator<K>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+			
+			@Override
+			public K next() {
+				return iterator.next().getKey();
+			}
+			
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		};
+	}
+	
+	@Override
+	public int size() {
+		return map.size();
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		return map.containsKey(o);
+	}
+	
+	@Override
+	public Comparator<? super K> comparator() {
+		return map.comparator();
+	}
+	
+	@Override
+	public SortedSet<K> subSet(K fromElement, K toElement) {
+		return new SortedKeySet<>(map.subMap(fromElement, toElement));
+	}
+	
+	@Override
+	public SortedSet<K> headSet(K toElement) {
+		return new SortedKeySet<>(map.headMap(toElement));
+	}
+	
+	@Override
+	public SortedSet<K> tailSet(K fromElement) {
+		return new SortedKeySet<>(map.tailMap(fromElement));
+	}
+	
+	@Override
+	public K first() {
+		return map.firstKey();
+	}
+	
+	@Override
+	public K last() {
+		return map.lastKey();
+	}
+}
@@ -24,13 +24,14 @@ public final class TranslationKeys {
 	}
 	
 	/**
-	 * Creates a key by joining the given parts.
+	 * Creates a key by joining the given parts. The key is taken from the {@link KeyPool#shared() shared pool}, 
+	 * so equal keys share their storage.
 	 * 
 	 * @param 	parts the parts of the key.
 	 * @return 	the created key.
 	 */
 	public static String create(List<String> parts) {
-		return parts.stream().filter(p -> p != null && !p.isEmpty()).collect(Collectors.joining("."));
+		return KeyPool.shared().intern(parts.stream().filter(p -> p != null && !p.isEmpty()).collect(Collectors.joining(".")));
 	}
 	
 	/**
@@ -138,16 +139,8 @@ public final class TranslationKeys {
 	public static String childKey(String key, String parentKey) {
 		if (key == null || key.isEmpty()) return "";
 		if (parentKey == null || parentKey.isEmpty()) return key;
-		
-		// FIXME: Workarround temporal para los arrays []
-		parentKey = parentKey.replace("[","\\[").replace("]","\\]");
-		
-		
-		
-		String result = key.replaceFirst(parentKey + "\\.", "");
-		
-		if (result.equals(key)) return "";
-		return result;
+		if (!isChildKeyOf(key, parentKey)) return "";
+		return key.substring(parentKey.length() + 1);
 	}
 	
 	/**
@@ -159,13 +152,29 @@ public final class TranslationKeys {
 	 * @return	whether the given key is a child of the given parent key.
 	 */
 	public static boolean isChildKeyOf(String key, String parentKey) {
-		// FIXME: Workarround temporal para los arrays []
-//		parentKey = parentKey.replace("[","\\[").replace("]","\\]");
-//		key = key.replace("[","\\[").replace("]","\\]");
-		
 		return key.startsWith(parentKey + ".");
 	}
 	
+	/**
+	 * Checks whether the part of the given key starting at the given offset is the index of an array element,
+	 * like the parts {@code [0]} and {@code [12]} of the keys {@code a.[0]} and {@code a.[12].b}.
+	 * 
+	 * @param 	key the key.
+	 * @param 	offset the offset of the part in the key.
+	 * @return	whether the part is an array index.
+	 */
+	public static boolean isArrayIndex(String key, int offset) {
+		if (offset >= key.length() || key.charAt(offset) != '[') {
+			return false;
+		}
+		int end = offset + 1;
+		while (end < key.length() && key.charAt(end) >= '0' && key.charAt(end) <= '9') {
+			end++;
+		}
+		return end > offset + 1 && end < key.length() && key.charAt(end) == ']'
+				&& (end + 1 == key.length() || key.charAt(end + 1) == '.');
+	}
+	
 	/**
 	 * Gets the unique root keys of a list of keys. A root key is the first part of a key.
 	 * 
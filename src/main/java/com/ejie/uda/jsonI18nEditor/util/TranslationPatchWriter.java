@@ -0,0 +1,587 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * This class writes translations to a JSON file by patching the previous content of the file, so only the
+ * parts of the file of which the translations have been changed are written again.
+ * 
+ * <p>The previous file is scanned once, which verifies its hash and finds the byte spans of the members of
+ * the objects containing changed translations. Other values are skipped without decoding them. A member
+ * without any changed translations is copied from the previous file as it is by {@link FileChannel#transferTo}, together with
+ * the whitespace around it. Only the values of changed members are written again, new members are inserted
+ * before the first following member in key order. New content is indented like the previous file.</p>
+ * 
+ * <p>Files which can not be patched reliably are rejected, so they can be written in full. These are files
+ * which are not plain JSON, which have been changed since they were read, which contain member names that
+ * are not a single part of a translation key, or of which the layout does not match the requested one.</p>
+ */
+public final class TranslationPatchWriter {
+	private final static Charset ENCODING = Charset.forName("UTF-8");
+	private final static int BUFFER_SIZE = 64 * 1024;
+	private final static String JSON_INDENT = "  ";
+	private final FileChannel in;
+	private final FileChannel out;
+	private final SortedMap<String,String> translations;
+	private final Set<String> arrayKeys;
+	private final NavigableSet<String> changedKeys;
+	private final StringBuilder text = new StringBuilder();
+	private long copyFrom = -1;
+	private long copyTo;
+	private String indent;
+	private String lineSeparator = "\n";
+	private String nameSeparator;
+	
+	private TranslationPatchWriter(FileChannel in, FileChannel out, SortedMap<String,String> translations,
+			Set<String> arrayKeys, Collection<String> changedKeys) {
+		this.in = in;
+		this.out = out;
+		this.translations = translations;
+		this.arrayKeys = arrayKeys;
+		this.changedKeys = Sets.newTreeSet(changedKeys);
+	}
+	
+	/**
+	 * Writes the given translations to the given channel by patching the previous content of the file.
+	 * 
+	 * @param 	path the path of the file with the previous content.
+	 * @param 	hash the hash of the previous content the translations have been read from.
+	 * @param 	translations the translations to write, sorted by key.
+	 * @param 	arrayKeys the parent keys which are written as arrays.
+	 * @param 	changedKeys the keys of the translations which have been changed, added or removed since
+	 * 			the previous content was read. Any other translation must equal the previous content.
+	 * @param 	prettyPrinting whether the content is expected to be pretty printed.
+	 * @param 	out the channel to write the new content to.
+	 * @return 	whether the content has been written, or {@code false} if the file can not be patched and
+	 * 			nothing has been written.
+	 * @throws 	IOException if an I/O error occurs reading the file or writing the content.
+	 */
+	public static boolean write(Path path, HashCode hash, SortedMap<String,String> translations, Set<String> arrayKeys,
+			Collection<String> changedKeys, boolean prettyPrinting, FileChannel out) throws IOException {
+		try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+			TranslationPatchWriter writer = new TranslationPatchWriter(in, out, translations, arrayKeys, changedKeys);
+			Node root;
+			try {
+				root = new Scanner(in, writer.changedKeys).scan(hash);
+			} catch (MalformedJsonException e) {
+				return false;
+			}
+			if (root == null) {
+				return false;
+			}
+			if (!writer.detectLayout(root, prettyPrinting)) {
+				return false;
+			}
+			writer.write(root);
+			return true;
+		}
+	}
+	
+	/**
+	 * Detects the indentation and separators of the previous content, which are used for new content.
+	 * 
+	 * @return 	whether the layout matches the requested layout.
+	 */
+	private boolean detectLayout(Node root, boolean prettyPrinting) throws IOException {
+		if (root.members.isEmpty()) {
+			indent = prettyPrinting ? JSON_INDENT : null;
+			nameSeparator = prettyPrinting ? ": " : ":";
+			return true;
+		}
+		Member first = root.members.get(0);
+		String gap = read(root.start + 1, first.start);
+		int newline = gap.lastIndexOf('\n');
+		indent = newline == -1 || newline == gap.length() - 1 ? null : gap.substring(newline + 1);
+		lineSeparator = gap.contains("\r\n") ? "\r\n" : "\n";
+		nameSeparator = read(first.nameEnd, first.value.start);
+		return prettyPrinting == (indent != null);
+	}
+	
+	private void write(Node root) throws IOException {
+		copy(0, root.start);
+		writeObject(root, "", "");
+		copy(root.end, in.size());
+		flushCopy();
+		flushText();
+	}
+	
+	/**
+	 * Writes an object of the previous content which contains changed translations.
+	 * 
+	 * @param 	node the object.
+	 * @param 	prefix the key prefix of the members of the object, empty or ending with a dot.
+	 * @param 	lineIndent the indentation of the line the object starts at.
+	 */
+	private void writeObject(Node node, String prefix, String lineIndent) throws IOException {
+		List<Member> members = node.members;
+		String memberIndent = getMemberIndent(node, lineIndent);
+		String separator = members.size() > 1
+				? read(members.get(0).value.end, members.get(1).start)
+				: "," + (memberIndent == null ? "" : lineSeparator + memberIndent);
+		
+		// Members which have been added contain changed keys only
+		Set<String> names = Sets.newHashSet();
+		members.forEach(member -> names.add(member.name));
+		SortedSet<String> newNames = Sets.newTreeSet();
+		for (String key : prefix.isEmpty() ? changedKeys : changedKeys.subSet(prefix, getPrefixEnd(prefix))) {
+			int dot = key.indexOf('.', prefix.length());
+			String name = dot == -1 ? key.substring(prefix.length()) : key.substring(prefix.length(), dot);
+			if (!names.contains(name) && (translations.containsKey(prefix + name) || hasChildren(prefix + name))) {
+				newNames.add(name);
+			}
+		}
+		
+		copy(node.start, node.start + 1);
+		int written = 0;
+		int previous = -2;
+		for (int i = 0; i < members.size(); i++) {
+			Member member = members.get(i);
+			String key = prefix + member.name;
+			boolean changed = isChanged(key);
+			if (changed && !translations.containsKey(key) && !hasChildren(key)) {
+				// The member has been removed
+				continue;
+			}
+			while (!newNames.isEmpty() && newNames.first().compareTo(member.name) < 0) {
+				writeSeparator(node, written++, separator, memberIndent);
+				writeNewMember(prefix, newNames.first(), memberIndent);
+				newNames.remove(newNames.first());
+				previous = -2;
+			}
+			if (written > 0 && previous == i - 1) {
+				copy(members.get(i - 1).value.end, member.start);
+				written++;
+			} else {
+				writeSeparator(node, written++, separator, memberIndent);
+			}
+			if (!changed) {
+				copy(member.start, member.value.end);
+			} else {
+				copy(member.start, member.value.start);
+				if (member.value.type == JsonToken.BEGIN_OBJECT && hasChildren(key) && !arrayKeys.contains(key)) {
+					writeObject(member.value, key + ".", memberIndent == null ? "" : memberIndent);
+				} else {
+					writeValue(key, memberIndent);
+				}
+			}
+			previous = i;
+		}
+		for (String name : newNames) {
+			writeSeparator(node, written++, separator, memberIndent);
+			writeNewMember(prefix, name, memberIndent);
+		}
+		
+		if (written > 0 && !members.isEmpty()) {
+			copy(members.get(members.size() - 1).value.end, node.end - 1);
+		} else if (written > 0 && memberIndent != null) {
+			text(lineSeparator + lineIndent);
+		}
+		copy(node.end - 1, node.end);
+	}
+	
+	private void writeSeparator(Node node, int written, String separator, String memberIndent) throws IOException {
+		if (written > 0) {
+			text(separator);
+		} else if (!node.members.isEmpty()) {
+			copy(node.start + 1, node.members.get(0).start);
+		} else if (memberIndent != null) {
+			text(lineSeparator + memberIndent);
+		}
+	}
+	
+	private void writeNewMember(String prefix, String name, String memberIndent) throws IOException {
+		text(toJson(name) + nameSeparator);
+		writeValue(prefix + name, memberIndent);
+	}
+	
+	/**
+	 * Writes the value of the given key, which is either a single translation or an object or array
+	 * containing the translations of the child keys.
+	 */
+	private void writeValue(String key, String lineIndent) throws IOException {
+		StringWriter buffer = new StringWriter();
+		JsonWriter writer = new JsonWriter(buffer);
+		writer.setLenient(true);
+		boolean pretty = indent != null && lineIndent != null;
+		if (pretty) {
+			writer.setIndent(indent);
+		}
+		if (hasChildren(key)) {
+			TranslationWriter.write(translations, arrayKeys, key + ".", writer);
+		} else {
+			writer.value(translations.get(key));
+		}
+		writer.flush();
+		String value = buffer.toString();
+		text(pretty ? value.replace("\n", lineSeparator + lineIndent) : value);
+	}
+	
+	private String getMemberIndent(Node node, String lineIndent) throws IOException {
+		if (node.members.isEmpty()) {
+			return indent == null ? null : lineIndent + indent;
+		}
+		String gap = read(node.start + 1, node.members.get(0).start);
+		int newline = gap.lastIndexOf('\n');
+		return newline == -1 ? null : gap.substring(newline + 1);
+	}
+	
+	private boolean isChanged(String key) {
+		return changedKeys.contains(key) || !changedKeys.subSet(key + ".", key + "/").isEmpty();
+	}
+	
+	private boolean hasChildren(String key) {
+		return !translations.subMap(key + ".", key + "/").isEmpty();
+	}
+	
+	private static String getPrefixEnd(String prefix) {
+		return prefix.substring(0, prefix.length() - 1) + "/";
+	}
+	
+	private static String toJson(String value) throws IOException {
+		StringWriter buffer = new StringWriter();
+		JsonWriter writer = new JsonWriter(buffer);
+		writer.setLenient(true);
+		writer.value(value);
+		writer.flush();
+		return buffer.toString();
+	}
+	
+	private String read(long from, long to) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+		while (buffer.hasRemaining()) {
+			if (in.read(buffer, from + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+		buffer.flip();
+		return ENCODING.decode(buffer).toString();
+	}
+	
+	/**
+	 * Copies a span of the previous content, adjacent spans are copied at once.
+	 */
+	private void copy(long from, long to) throws IOException {
+		if (from == to) {
+			return;
+		}
+		if (copyFrom >= 0 && copyTo == from) {
+			copyTo = to;
+			return;
+		}
+		flushText();
+		flushCopy();
+		copyFrom = from;
+		copyTo = to;
+	}
+	
+	private void text(String value) throws IOException {
+		flushCopy();
+		text.append(value);
+	}
+	
+	private void flushCopy() throws IOException {
+		if (copyFrom < 0) {
+			return;
+		}
+		long position = copyFrom;
+		while (position < copyTo) {
+			long transferred = in.transferTo(position, copyTo - position, out);
+			if (transferred <= 0) {
+				throw new IOException("Unexpected end of file");
+			}
+			position += transferred;
+		}
+		copyFrom = -1;
+	}
+	
+	private void flushText() throws IOException {
+		if (text.length() == 0) {
+			return;
+		}
+		ByteBuffer buffer = ENCODING.encode(text.toString());
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		text.setLength(0);
+	}
+	
+	/**
+	 * Scans the previous content for the byte spans of the members of the objects containing changed keys, 
+	 * while computing the hash of the content. The values of unchanged members are skipped, without 
+	 * decoding any of their content.
+	 */
+	private final static class Scanner {
+		private final FileChannel in;
+		private final NavigableSet<String> changedKeys;
+		private final Hasher hasher = Hashing.murmur3_128().newHasher();
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+		private final ByteArrayOutputStream nameBytes = new ByteArrayOutputStream();
+		private long bufferStart;
+		private int position;
+		private int limit;
+		
+		public Scanner(FileChannel in, NavigableSet<String> changedKeys) {
+			this.in = in;
+			this.changedKeys = changedKeys;
+		}
+		
+		/**
+		 * Scans the root object.
+		 * 
+		 * @return 	the root object, or {@code null} if the content does not have the given hash or the 
+		 * 			member names can not be matched with translation keys.
+		 */
+		public Node scan(HashCode hash) throws IOException {
+			in.position(0);
+			if (skipWhitespace() != '{') {
+				return null;
+			}
+			Node root = scanObject("");
+			if (root == null || skipWhitespace() != -1) {
+				return null;
+			}
+			return hasher.hash().equals(hash) ? root : null;
+		}
+		
+		private Node scanObject(String prefix) throws IOException {
+			Node node = new Node(JsonToken.BEGIN_OBJECT, offset());
+			node.members = Lists.newArrayList();
+			Set<String> names = Sets.newHashSet();
+			position++;
+			while (true) {
+				int c = skipWhitespace();
+				if (c == '}') {
+					position++;
+					break;
+				}
+				if (c == ',' && !node.members.isEmpty()) {
+					position++;
+					c = skipWhitespace();
+				}
+				if (c != '"') {
+					throw syntaxError("Expected a name");
+				}
+				long start = offset();
+				String name = readName();
+				// Names which are no single part of a key can not be matched with the translations
+				if (name.isEmpty() || name.indexOf('.') != -1 || !names.add(name)) {
+					return null;
+				}
+				long nameEnd = offset();
+				if (skipWhitespace() != ':') {
+					throw syntaxError("Expected ':'");
+				}
+				position++;
+				c = skipWhitespace();
+				String key = prefix + name;
+				Node value;
+				if (c == '{' && isChanged(key)) {
+					value = scanObject(key + ".");
+					if (value == null) {
+						return null;
+					}
+				} else {
+					value = new Node(c == '{' ? JsonToken.BEGIN_OBJECT : JsonToken.STRING, offset());
+					skipValue(c);
+					value.end = offset();
+				}
+				node.members.add(new Member(name, start, nameEnd, value));
+			}
+			node.end = offset();
+			return node;
+		}
+		
+		private boolean isChanged(String key) {
+			return changedKeys.contains(key) || !changedKeys.subSet(key + ".", key + "/").isEmpty();
+		}
+		
+		private void skipValue(int c) throws IOException {
+			if (c == '"') {
+				skipString();
+			} else if (c == '{' || c == '[') {
+				int depth = 0;
+				do {
+					c = next();
+					if (c == '"') {
+						position--;
+						skipString();
+					} else if (c == '{' || c == '[') {
+						depth++;
+					} else if (c == '}' || c == ']') {
+						depth--;
+					} else if (c == -1) {
+						throw syntaxError("Unexpected end of document");
+					}
+				} while (depth > 0);
+			} else {
+				// Only plain JSON literals are supported, no lenient syntax like single quoted strings
+				int length = 0;
+				while (c != -1 && (c == '-' || c == '+' || c == '.' || Character.isLetterOrDigit(c))) {
+					position++;
+					length++;
+					c = peek();
+				}
+				if (length == 0) {
+					throw syntaxError("Unexpected character");
+				}
+			}
+		}
+		
+		private void skipString() throws IOException {
+			position++;
+			while (true) {
+				if (position == limit && !fill()) {
+					throw syntaxError("Unterminated string");
+				}
+				byte b = buffer[position++];
+				if (b == '"') {
+					return;
+				}
+				if (b == '\\') {
+					if (next() == -1) {
+						throw syntaxError("Unterminated string");
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Reads a name, of which the escape sequences are decoded like the translation keys are when read.
+		 */
+		private String readName() throws IOException {
+			nameBytes.reset();
+			position++;
+			boolean escaped = false;
+			while (true) {
+				int c = next();
+				if (c == -1) {
+					throw syntaxError("Unterminated string");
+				}
+				if (c == '"') {
+					break;
+				}
+				if (c == '\\') {
+					escaped = true;
+					nameBytes.write(c);
+					c = next();
+				}
+				nameBytes.write(c);
+			}
+			String name = new String(nameBytes.toByteArray(), ENCODING);
+			if (!escaped) {
+				return name;
+			}
+			OffsetJsonReader reader = new OffsetJsonReader(new ByteArrayInputStream(("\"" + name + "\"").getBytes(ENCODING)), 0);
+			return reader.nextValue();
+		}
+		
+		private int skipWhitespace() throws IOException {
+			int c = peek();
+			while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				position++;
+				c = peek();
+			}
+			return c;
+		}
+		
+		private int peek() throws IOException {
+			if (position == limit && !fill()) {
+				return -1;
+			}
+			return buffer[position] & 0xFF;
+		}
+		
+		private int next() throws IOException {
+			int c = peek();
+			if (c != -1) {
+				position++;
+			}
+			return c;
+		}
+		
+		private long offset() {
+			return bufferStart + position;
+		}
+		
+		/**
+		 * Reads the next part of the content into the buffer, every byte read is hashed.
+		 */
+		private boolean fill() throws IOException {
+			bufferStart += limit;
+			position = 0;
+			limit = 0;
+			byteBuffer.clear();
+			int n;
+			do {
+				n = in.read(byteBuffer);
+			} while (n == 0);
+			if (n < 0) {
+				return false;
+			}
+			limit = n;
+			hasher.putBytes(buffer, 0, n);
+			return true;
+		}
+		
+		private MalformedJsonException syntaxError(String message) {
+			return new MalformedJsonException(message + " at byte " + offset());
+		}
+	}
+	
+	/**
+	 * The byte span of a value of the previous content.
+	 */
+	private final static class Node {
+		private final JsonToken type;
+		private final long start;
+		private long end;
+		private List<Member> members = Collections.emptyList();
+		
+		public Node(JsonToken type, long start) {
+			this.type = type;
+			this.start = start;
+		}
+	}
+	
+	/**
+	 * The byte span of an object member of the previous content, from the start of its name.
+	 */
+	private final static class Member {
+		private final String name;
+		private final long start;
+		private final long nameEnd;
+		private final Node value;
+		
+		public Member(String name, long start, long nameEnd, Node value) {
+			this.name = name;
+			this.start = start;
+			this.nameEnd = nameEnd;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * This class writes flattened translations as nested JSON to a {@link JsonWriter}, in a single ordered
+ * pass over the sorted translation keys and without building an intermediate JSON tree.
+ * 
+ * <p>The keys sharing a parent key form a contiguous range of the sorted keys, so every object and array
+ * is written from a range of the keys, of which the bounds are found by binary search. A key is written
+ * as an object member named by the parts of the key. The parent keys given as array keys are written as
+ * arrays instead, of which the elements are the child keys in key order, like {@code [0]} and {@code [1]}.
+ * The keys themselves are never inspected to tell an array from an object.</p>
+ */
+public final class TranslationWriter {
+	private final JsonWriter writer;
+	private final String[] keys;
+	private final String[] values;
+	private final int[] skips;
+	private final Set<String> arrayKeys;
+	
+	private TranslationWriter(Map<String,String> translations, Set<String> arrayKeys, JsonWriter writer) {
+		this.writer = writer;
+		this.arrayKeys = arrayKeys;
+		this.keys = new String[translations.size()];
+		this.values = new String[keys.length];
+		this.skips = new int[keys.length];
+		int i = 0;
+		for (Map.Entry<String,String> entry : translations.entrySet()) {
+			keys[i] = entry.getKey();
+			values[i++] = entry.getValue();
+		}
+	}
+	
+	/**
+	 * Writes the given translations as nested JSON.
+	 * 
+	 * @param 	translations the translations to write, sorted by key.
+	 * @param 	arrayKeys the parent keys which are written as arrays.
+	 * @param 	writer the writer to write the JSON content to.
+	 * @throws 	IOException if an I/O error occurs writing the content.
+	 */
+	public static void write(SortedMap<String,String> translations, Set<String> arrayKeys, JsonWriter writer) throws IOException {
+		new TranslationWriter(translations, arrayKeys, writer).write();
+	}
+	
+	/**
+	 * Writes the translations of which the key starts with the given prefix as a nested JSON object or array, 
+	 * named by the parts of the keys following the prefix.
+	 * 
+	 * @param 	translations the translations, sorted by key.
+	 * @param 	arrayKeys the parent keys which are written as arrays.
+	 * @param 	prefix the prefix of the keys to write, ending with a dot.
+	 * @param 	writer the writer to write the JSON content to.
+	 * @throws 	IOException if an I/O error occurs writing the content.
+	 */
+	public static void write(SortedMap<String,String> translations, Set<String> arrayKeys, String prefix, 
+			JsonWriter writer) throws IOException {
+		SortedMap<String,String> children = translations.subMap(prefix, prefix.substring(0, prefix.length() - 1) + "/");
+		new TranslationWriter(children, arrayKeys, writer).writeContainer(prefix, 0, children.size());
+	}
+	
+	private void write() throws IOException {
+		if (keys.length == 0) {
+			writer.beginObject();
+			writer.endObject();
+		} else {
+			writeContainer("", 0, keys.length);
+		}
+	}
+	
+	/**
+	 * Writes the keys in the given range, which all start with the given prefix, as an object or an array.
+	 */
+	private void writeContainer(String prefix, int from, int to) throws IOException {
+		boolean array = !prefix.isEmpty() && arrayKeys.contains(prefix.substring(0, prefix.length() - 1));
+		if (array) {
+			writer.beginArray();
+		} else {
+			writer.beginObject();
+		}
+		int i = from;
+		while (i < to) {
+			if (skips[i] > 0) {
+				// The children of a key which has been written already
+				int next = skips[i];
+				skips[i] = 0;
+				i = next;
+				continue;
+			}
+			String key = keys[i];
+			int dot = key.indexOf('.', prefix.length());
+			String childPrefix = dot == -1 ? key + "." : key.substring(0, dot + 1);
+			int childFrom = dot == -1 ? lowerBound(childPrefix, i + 1, to) : i;
+			int childTo = lowerBound(childPrefix.substring(0, childPrefix.length() - 1) + "/", childFrom, to);
+			if (!array) {
+				writer.name(dot == -1 ? key.substring(prefix.length()) : key.substring(prefix.length(), dot));
+			}
+			if (childFrom < childTo) {
+				// A key with children is written as their parent, its own translation is dropped
+				writeContainer(childPrefix, childFrom, childTo);
+			} else {
+				writer.value(values[i]);
+			}
+			if (dot == -1) {
+				// Keys like 'a-b' are sorted between a key 'a' and its children
+				if (childFrom < childTo) {
+					skips[childFrom] = childTo;
+				}
+				i++;
+			} else {
+				i = childTo;
+			}
+		}
+		if (array) {
+			writer.endArray();
+		} else {
+			writer.endObject();
+		}
+	}
+	
+	/**
+	 * Gets the index of the first key in the given range which is not less than the given key.
+	 */
+	private int lowerBound(String key, int from, int to) {
+		int index = Arrays.binarySearch(keys, from, to, key);
+		return index >= 0 ? index : -index - 1;
+	}
+}
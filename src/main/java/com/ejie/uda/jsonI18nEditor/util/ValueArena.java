@@ -0,0 +1,212 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class packs strings into large byte arrays, so a string costs little more than its encoded
+ * bytes instead of a string and a character array of its own.
+ * 
+ * <p>A string is added to the end of the last chunk of the arena and referenced by an int, which holds
+ * the index of the chunk and the offset of the string within it. Every string is prefixed by its length
+ * and its encoding: ISO-8859-1 when all of its characters fit, UTF-8 otherwise and UTF-16 for the rare
+ * string which UTF-8 can not hold, like a string with an unpaired surrogate.</p>
+ * 
+ * <p>The bytes of a string are never changed once added, so a string can still be read from a
+ * version of the chunks taken before further strings have been added, see {@link #getChunks()}.
+ * Strings are not removed from the arena either, a new arena is filled with the strings in use
+ * instead once enough of them are no longer needed.</p>
+ */
+final class ValueArena {
+	private final static int OFFSET_BITS = 16;
+	private final static int CHUNK_SIZE = 1 << OFFSET_BITS;
+	private final static int MAX_CHUNKS = (1 << (31 - OFFSET_BITS)) - 1;
+	private final static int LATIN1 = 0;
+	private final static int UTF8 = 1;
+	private final static int UTF16 = 2;
+	private byte[][] chunks = new byte[4][];
+	private int chunkCount;
+	private int position;
+	private long size;
+	
+	/**
+	 * Adds a string to the arena.
+	 * 
+	 * @param 	value the string.
+	 * @return 	the reference to the string, which is never 0.
+	 */
+	int add(String value) {
+		int encoding = encoding(value);
+		byte[] bytes;
+		if (encoding == UTF16) {
+			// The charsets replace unpaired surrogates, so the characters are written as they are
+			bytes = new byte[value.length() * 2];
+			for (int i = 0; i < value.length(); i++) {
+				bytes[2 * i] = (byte) (value.charAt(i) >>> 8);
+				bytes[2 * i + 1] = (byte) value.charAt(i);
+			}
+		} else {
+			bytes = value.getBytes(encoding == LATIN1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+		}
+		return add(bytes, 0, bytes.length, encoding);
+	}
+	
+	/**
+	 * Adds a string of another arena to this arena, without decoding it.
+	 * 
+	 * @param 	arena the other arena.
+	 * @param 	ref the reference to the string in the other arena.
+	 * @return 	the reference to the string in this arena.
+	 */
+	int add(ValueArena arena, int ref) {
+		byte[] chunk = arena.chunks[chunk(ref)];
+		int offset = offset(ref);
+		int header = readHeader(chunk, offset);
+		return add(chunk, offset + headerLength(header), header >>> 2, header & 3);
+	}
+	
+	/**
+	 * Gets a string of the arena.
+	 * 
+	 * @param 	ref the reference to the string.
+	 * @return 	the string.
+	 */
+	String get(int ref) {
+		return get(chunks, ref);
+	}
+	
+	/**
+	 * Gets the number of bytes taken by a string of the arena.
+	 * 
+	 * @param 	ref the reference to the string.
+	 * @return 	the number of bytes.
+	 */
+	int length(int ref) {
+		int header = readHeader(chunks[chunk(ref)], offset(ref));
+		return headerLength(header) + (header >>> 2);
+	}
+	
+	/**
+	 * Gets the number of bytes taken by all strings added to the arena.
+	 * 
+	 * @return 	the number of bytes.
+	 */
+	long getSize() {
+		return size;
+	}
+	
+	/**
+	 * Gets the current version of the chunks of the arena, to read strings added so far by
+	 * {@link #get(byte[][], int)} without holding the arena itself.
+	 * 
+	 * @return 	the chunks.
+	 */
+	byte[][] getChunks() {
+		return chunks;
+	}
+	
+	/**
+	 * Gets a string from a version of the chunks of an arena.
+	 * 
+	 * @param 	chunks the chunks.
+	 * @param 	ref the reference to the string.
+	 * @return 	the string.
+	 */
+	static String get(byte[][] chunks, int ref) {
+		byte[] chunk = chunks[chunk(ref)];
+		int offset = offset(ref);
+		int header = readHeader(chunk, offset);
+		offset += headerLength(header);
+		switch (header & 3) {
+		case LATIN1:
+			return new String(chunk, offset, header >>> 2, StandardCharsets.ISO_8859_1);
+		case UTF8:
+			return new String(chunk, offset, header >>> 2, StandardCharsets.UTF_8);
+		default:
+			char[] chars = new char[(header >>> 2) / 2];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = (char) ((chunk[offset + 2 * i] & 0xFF) << 8 | chunk[offset + 2 * i + 1] & 0xFF);
+			}
+			return new String(chars);
+		}
+	}
+	
+	private int add(byte[] bytes, int offset, int length, int encoding) {
+		int header = length << 2 | encoding;
+		int total = headerLength(header) + length;
+		if (chunkCount == 0 || position + total > chunks[chunkCount - 1].length) {
+			// Strings which do not fit into a chunk get a chunk of their own
+			Preconditions.checkState(chunkCount < MAX_CHUNKS, "The arena is full");
+			if (chunkCount == chunks.length) {
+				chunks = Arrays.copyOf(chunks, chunkCount * 2);
+			}
+			chunks[chunkCount++] = new byte[Math.max(CHUNK_SIZE, total)];
+			position = 0;
+		}
+		byte[] chunk = chunks[chunkCount - 1];
+		int ref = ((chunkCount - 1) << OFFSET_BITS | position) + 1;
+		position = writeHeader(chunk, position, header);
+		System.arraycopy(bytes, offset, chunk, position, length);
+		position += length;
+		size += total;
+		return ref;
+	}
+	
+	private static int encoding(String value) {
+		int encoding = LATIN1;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+				encoding = UTF8;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				return UTF16;
+			} else if (c > 0xFF) {
+				encoding = UTF8;
+			}
+		}
+		return encoding;
+	}
+	
+	private static int chunk(int ref) {
+		return (ref - 1) >>> OFFSET_BITS;
+	}
+	
+	private static int offset(int ref) {
+		return (ref - 1) & (CHUNK_SIZE - 1);
+	}
+	
+	/**
+	 * Writes a header as a variable length int of 7 bits per byte.
+	 */
+	private static int writeHeader(byte[] chunk, int position, int header) {
+		while ((header & ~0x7F) != 0) {
+			chunk[position++] = (byte) (header & 0x7F | 0x80);
+			header >>>= 7;
+		}
+		chunk[position++] = (byte) header;
+		return position;
+	}
+	
+	private static int readHeader(byte[] chunk, int position) {
+		int header = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = chunk[position++];
+			header |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return header;
+			}
+		}
+	}
+	
+	private static int headerLength(int header) {
+		int length = 1;
+		while ((header & ~0x7F) != 0) {
+			header >>>= 7;
+			length++;
+		}
+		return length;
+	}
+}
@@ -0,0 +1,213 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class represents a mutable sorted map of which an immutable version can be taken in constant time.
+ * 
+ * <p>The map holds its entries in a {@link PersistentSortedMap} tree. The nodes created since the last
+ * version was taken belong to the map and are changed in place, so a series of changes costs about as
+ * much as changing a tree map. Taking a version hands the tree over as it is, after which a change copies
+ * the nodes on its path first and leaves the version untouched.</p>
+ * 
+ * <p>The map itself is not thread safe, the versions taken from it are. The sub map views of the map
+ * write through to the map, iterating any view iterates the version of the view at the time the iteration
+ * started.</p>
+ * 
+ * @param 	<K> the type of the keys.
+ * @param 	<V> the type of the values.
+ */
+public class VersionedSortedMap<K extends Comparable<? super K>,V> extends AbstractMap<K,V> implements SnapshotSortedMap<K,V> {
+	private final State<K,V> state;
+	private final K fromKey;
+	private final K toKey;
+	private Set<Map.Entry<K,V>> entrySet;
+	
+	/**
+	 * Creates a new empty map.
+	 */
+	public VersionedSortedMap() {
+		this(new State<>(), null, null);
+	}
+	
+	/**
+	 * Creates a new map containing the entries of the given map.
+	 * 
+	 * @param 	map the map to copy.
+	 */
+	public VersionedSortedMap(Map<? extends K,? extends V> map) {
+		this();
+		state.root = PersistentSortedMap.build(map, state.edit);
+	}
+	
+	private VersionedSortedMap(State<K,V> state, K fromKey, K toKey) {
+		this.state = state;
+		this.fromKey = fromKey;
+		this.toKey = toKey;
+	}
+	
+	@Override
+	public PersistentSortedMap<K,V> snapshot() {
+		// Nodes of the current edit are never changed in place anymore once they are part of a version
+		state.edit = new Object();
+		return new PersistentSortedMap<>(state.root, fromKey, toKey);
+	}
+	
+	@Override
+	public V get(Object key) {
+		PersistentSortedMap.Node<K,V> node = containsKey(key) ? PersistentSortedMap.find(state.root, PersistentSortedMap.<K>cast(key)) : null;
+		return node == null ? null : node.getValue();
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		K k = PersistentSortedMap.cast(key);
+		return key != null && PersistentSortedMap.inRange(k, fromKey, toKey) && PersistentSortedMap.find(state.root, k) != null;
+	}
+	
+	@Override
+	public V put(K key, V value) {
+		Preconditions.checkNotNull(key);
+		Preconditions.checkArgument(PersistentSortedMap.inRange(key, fromKey, toKey), "key out of range");
+		PersistentSortedMap.Node<K,V> node = PersistentSortedMap.find(state.root, key);
+		V previous = node == null ? null : node.getValue();
+		state.root = PersistentSortedMap.put(state.root, key, value, state.edit);
+		return previous;
+	}
+	
+	@Override
+	public V remove(Object key) {
+		if (!containsKey(key)) {
+			return null;
+		}
+		K k = PersistentSortedMap.cast(key);
+		V previous = PersistentSortedMap.find(state.root, k).getValue();
+		state.root = PersistentSortedMap.remove(state.root, k, state.edit);
+		return previous;
+	}
+	
+	@Override
+	public void clear() {
+		if (fromKey == null && toKey == null) {
+			state.root = null;
+		} else {
+			super.clear();
+		}
+	}
+	
+	@Override
+	public int size() {
+		return PersistentSortedMap.size(state.root, fromKey, toKey);
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return PersistentSortedMap.first(state.root, fromKey, toKey) == null;
+	}
+	
+	@Override
+	public Set<Map.Entry<K,V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<K,V>>() {
+				@Override
+				public Iterator<Map.Entry<K,V>> iterator() {
+					return new EntryIterator();
+				}
+				
+				@Override
+				public int size() {
+					return VersionedSortedMap.this.size();
+				}
+			
+			};
+		}
+		return entrySet;
+	}
+	
+	@Override
+	public Comparator<? super K> comparator() {
+		return null;
+	}
+	
+	@Override
+	public VersionedSortedMap<K,V> subMap(K fromKey, K toKey) {
+		PersistentSortedMap.checkRange(fromKey, this.fromKey, this.toKey);
+		PersistentSortedMap.checkRange(toKey, this.fromKey, this.toKey);
+		Preconditions.checkArgument(fromKey.compareTo(toKey) <= 0, "fromKey > toKey");
+		return new VersionedSortedMap<>(state, fromKey, toKey);
+	}
+	
+	@Override
+	public VersionedSortedMap<K,V> headMap(K toKey) {
+		PersistentSortedMap.checkRange(toKey, fromKey, this.toKey);
+		return new VersionedSortedMap<>(state, fromKey, toKey);
+	}
+	
+	@Override
+	public VersionedSortedMap<K,V> tailMap(K fromKey) {
+		PersistentSortedMap.checkRange(fromKey, this.fromKey, toKey);
+		return new VersionedSortedMap<>(state, fromKey, toKey);
+	}
+	
+	@Override
+	public K firstKey() {
+		PersistentSortedMap.Node<K,V> node = PersistentSortedMap.first(state.root, fromKey, toKey);
+		if (node == null) {
+			throw new NoSuchElementException();
+		}
+		return node.getKey();
+	}
+	
+	@Override
+	public K lastKey() {
+		PersistentSortedMap.Node<K,V> node = PersistentSortedMap.last(state.root, fromKey, toKey);
+		if (node == null) {
+			throw new NoSuchElementException();
+		}
+		return node.getKey();
+	}
+	
+	/**
+	 * The tree of a map and the edit its nodes are changed in place by, shared by the map and its views.
+	 */
+	private static class State<K,V> {
+		private PersistentSortedMap.Node<K,V> root;
+		private Object edit = new Object();
+	}
+	
+	/**
+	 * Iterates a version of the map, removing an entry removes it from the map.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K,V>> {
+		private final Iterator<Map.Entry<K,V>> iterator = snapshot().entrySet().iterator();
+		private K lastKey;
+		
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+		
+		@Override
+		public Map.Entry<K,V> next() {
+			Map.Entry<K,V> entry = iterator.next();
+			lastKey = entry.getKey();
+			return entry;
+		}
+		
+		@Override
+		public void remove() {
+			Preconditions.checkState(lastKey != null);
+			VersionedSortedMap.this.remove(lastKey);
+			lastKey = null;
+		}
+	}
+}
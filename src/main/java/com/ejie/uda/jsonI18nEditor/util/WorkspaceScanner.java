@@ -0,0 +1,169 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.ejie.uda.jsonI18nEditor.Bundle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * This class represents a scanner which finds the resource files in a directory tree and groups them
+ * into {@link Bundle}s. Subdirectories are scanned in parallel on the common fork join pool.
+ * 
+ * <p>The content of every scanned directory is cached together with the last modified time of the
+ * directory. Adding, removing or renaming a file changes the last modified time of its directory, so a
+ * rescan only lists the directories which have been changed since the previous scan. Directories which
+ * have been modified just before they were scanned are always listed again, because a later change
+ * within the resolution of the file system timestamps would go unnoticed otherwise.</p>
+ */
+public class WorkspaceScanner {
+	private final static Pattern IGNORED_DIR_PATTERN = Pattern.compile("\\..*|node_modules|bower_components|target");
+	private final static long TIMESTAMP_RESOLUTION = 2000;
+	private final int maxDepth;
+	private final ConcurrentMap<Path,DirectoryEntry> entries = Maps.newConcurrentMap();
+	
+	/**
+	 * Creates a new scanner.
+	 * 
+	 * @param 	maxDepth the maximum number of directory levels below the scanned directory to scan.
+	 */
+	public WorkspaceScanner(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+	
+	/**
+	 * Scans the given directory and its subdirectories for resource files.
+	 * Subdirectories which can not be read are skipped.
+	 * 
+	 * @param 	dir the directory to scan.
+	 * @return 	the bundles found, ordered by directory and name.
+	 * @throws 	IOException if an I/O error occurs reading the given directory.
+	 */
+	public List<Bundle> scan(Path dir) throws IOException {
+		long scanTime = System.currentTimeMillis();
+		DirectoryEntry root = scanDirectory(dir, scanTime);
+		ScanTask task = new ScanTask(dir, root, 0, scanTime);
+		ForkJoinPool.commonPool().invoke(task);
+		Map<Path,Map<String,Bundle>> bundles = Maps.newHashMap();
+		for (Path path : task.resources) {
+			String fileName = path.getFileName().toString();
+			String name = Resources.getBundleName(fileName);
+			Bundle bundle = bundles.computeIfAbsent(path.getParent(), p -> Maps.newHashMap())
+					.computeIfAbsent(name, n -> new Bundle(n, path.getParent()));
+			bundle.addPath(Resources.getLocaleName(fileName), path);
+		}
+		return bundles.values().stream()
+				.flatMap(m -> m.values().stream())
+				.sorted(Comparator.comparing(Bundle::getDir).thenComparing(Bundle::getName))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Removes all cached directory contents, so the next scan lists every directory again.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+	
+	private DirectoryEntry scanDirectory(Path dir, long scanTime) throws IOException {
+		long lastModified = Files.getLastModifiedTime(dir).toMillis();
+		DirectoryEntry entry = entries.get(dir);
+		if (entry != null && entry.lastModified == lastModified && !entry.racy) {
+			return entry;
+		}
+		List<Path> resources = Lists.newArrayList();
+		List<Path> subdirs = Lists.newArrayList();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path path : stream) {
+				String fileName = path.getFileName().toString();
+				// Symbolic links to directories are not followed, to avoid scanning cycles
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+				if (attributes.isDirectory()) {
+					if (Resources.isEs6Resource(path)) {
+						resources.add(path);
+					} else if (!IGNORED_DIR_PATTERN.matcher(fileName).matches()) {
+						subdirs.add(path);
+					}
+				} else if (Resources.isJsonResourceName(fileName, null)
+						&& (attributes.isRegularFile() || Files.isRegularFile(path))) {
+					resources.add(path);
+				}
+			}
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		entry = new DirectoryEntry(lastModified, scanTime - lastModified < TIMESTAMP_RESOLUTION,
+				ImmutableList.copyOf(resources), ImmutableList.copyOf(subdirs));
+		entries.put(dir, entry);
+		return entry;
+	}
+	
+	private final static class DirectoryEntry {
+		private final long lastModified;
+		private final boolean racy;
+		private final List<Path> resources;
+		private final List<Path> subdirs;
+		
+		public DirectoryEntry(long lastModified, boolean racy, List<Path> resources, List<Path> subdirs) {
+			this.lastModified = lastModified;
+			this.racy = racy;
+			this.resources = resources;
+			this.subdirs = subdirs;
+		}
+	}
+	
+	/**
+	 * Scans a directory, forking a task for each of its subdirectories.
+	 */
+	private class ScanTask extends RecursiveAction {
+		private final static long serialVersionUID = -4260719389036421738L;
+		private final Path dir;
+		private DirectoryEntry entry;
+		private final int depth;
+		private final long scanTime;
+		private final List<Path> resources = Lists.newArrayList();
+		
+		public ScanTask(Path dir, DirectoryEntry entry, int depth, long scanTime) {
+			this.dir = dir;
+			this.entry = entry;
+			this.depth = depth;
+			this.scanTime = scanTime;
+		}
+		
+		@Override
+		protected void compute() {
+			if (entry == null) {
+				try {
+					entry = scanDirectory(dir, scanTime);
+				} catch (IOException e) {
+					// The directory has been removed or can not be read
+					entries.remove(dir);
+					return;
+				}
+			}
+			resources.addAll(entry.resources);
+			if (depth < maxDepth && !entry.subdirs.isEmpty()) {
+				List<ScanTask> tasks = entry.subdirs.stream()
+						.map(subdir -> new ScanTask(subdir, null, depth + 1, scanTime))
+						.collect(Collectors.toList());
+				invokeAll(tasks);
+				tasks.forEach(task -> resources.addAll(task.resources));
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.junit.Test;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class BundleStoreTest {
+	
+	@Test
+	public void columnTest() {
+		BundleStore store = new BundleStore();
+		SortedMap<String,String> es = store.addColumn(ImmutableMap.of("a.x", "ax-es", "a.y", "ay-es", "b", "b-es"));
+		SortedMap<String,String> eu = store.addColumn(ImmutableMap.of("a.x", "ax-eu", "c", "c-eu"));
+		assertEquals(store.getKeyCount(), 4);
+		assertEquals(es, ImmutableSortedMap.of("a.x", "ax-es", "a.y", "ay-es", "b", "b-es"));
+		assertEquals(Lists.newArrayList(eu.keySet()), Lists.newArrayList("a.x", "c"));
+		assertEquals(eu.get("a.y"), null);
+		assertEquals(eu.containsKey("b"), false);
+		
+		// Keys used by a single column are removed once the column does not have a value anymore
+		es.remove("a.y");
+		eu.put("d", "d-eu");
+		assertEquals(store.getKeyCount(), 4);
+		assertEquals(es.size(), 2);
+		assertEquals(eu.size(), 3);
+		eu.remove("a.x");
+		assertEquals(store.getKeyCount(), 4);
+		assertEquals(es.get("a.x"), "ax-es");
+		
+		// Views of a range of keys write through to the column
+		SortedMap<String,String> range = es.subMap("a.", "a/");
+		assertEquals(range, ImmutableSortedMap.of("a.x", "ax-es"));
+		range.put("a.z", "az-es");
+		assertEquals(es.get("a.z"), "az-es");
+		assertEquals(eu.subMap("a.", "a/").isEmpty(), true);
+		assertEquals(es.firstKey(), "a.x");
+		assertEquals(es.lastKey(), "b");
+		
+		es.keySet().retainAll(Sets.newHashSet("b"));
+		assertEquals(es, ImmutableSortedMap.of("b", "b-es"));
+		assertEquals(Lists.newArrayList(store.addColumn(ImmutableMap.of()).keySet()).size(), 0);
+		assertEquals(store.getKeyCount(), 3);
+		
+		assertEquals(store.removeColumn(eu), ImmutableSortedMap.of("c", "c-eu", "d", "d-eu"));
+		assertEquals(store.getKeyCount(), 1);
+		assertEquals(store.getColumnCount(), 2);
+	}
+	
+	@Test
+	public void snapshotTest() {
+		BundleStore store = new BundleStore();
+		SnapshotSortedMap<String,String> es = store.addColumn(ImmutableMap.of("a", "a-es", "b", "b-es"));
+		for (int i = 0; i < 100; i++) {
+			es.put("k" + i, "v" + i);
+		}
+		SortedMap<String,String> snapshot = es.snapshot();
+		es.remove("a");
+		es.put("b", "b2-es");
+		es.put("c", "c-es");
+		es.subMap("k", "l").clear();
+		assertEquals(snapshot.size(), 102);
+		assertEquals(snapshot.get("a"), "a-es");
+		assertEquals(snapshot.get("b"), "b-es");
+		assertEquals(snapshot.containsKey("c"), false);
+		assertEquals(snapshot.subMap("k", "l").size(), 100);
+		assertEquals(snapshot.lastKey(), "k99");
+		assertEquals(es, ImmutableSortedMap.of("b", "b2-es", "c", "c-es"));
+		assertEquals(store.getKeyCount(), 2);
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotRemoveTest() {
+		new BundleStore().addColumn(ImmutableMap.of("a", "a-es")).snapshot().remove("a");
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotClearTest() {
+		new BundleStore().addColumn(ImmutableMap.of("a", "a-es")).snapshot().subMap("a", "b").clear();
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotKeySetRemoveTest() {
+		new BundleStore().addColumn(ImmutableMap.of("a", "a-es")).snapshot().keySet().remove("a");
+	}
+	
+	@Test
+	public void compactValuesTest() {
+		BundleStore store = new BundleStore(true);
+		String large = Strings.repeat("x", 100000);
+		Map<String,String> values = ImmutableMap.<String,String>builder()
+				.put("a", "latin \u00f1")
+				.put("b", "\u4f60\u597d \ud83d\ude00")
+				.put("c", "unpaired \ud83d")
+				.put("d", "")
+				.put("e", large)
+				.build();
+		SnapshotSortedMap<String,String> column = store.addColumn(values);
+		assertEquals(column, values);
+		SortedMap<String,String> snapshot = column.snapshot();
+		
+		// Replacing the values many times packs the arena again, versions taken before keep their values
+		for (int i = 0; i < 1000; i++) {
+			column.put("e", large + i);
+		}
+		column.remove("a");
+		assertEquals(column.get("e"), large + 999);
+		assertEquals(column.get("b"), values.get("b"));
+		assertEquals(column.size(), 4);
+		assertEquals(snapshot, values);
+	}
+	
+	@Test
+	public void resourceTest() {
+		BundleStore store = new BundleStore();
+		Resource es = new Resource(ResourceType.JSON, null, new Locale("es"), 
+				ImmutableSortedMap.of("a.a", "aa-es", "a.b", "ab-es"));
+		Resource eu = new Resource(ResourceType.JSON, null, new Locale("eu"), 
+				ImmutableSortedMap.of("a.a", "aa-eu"));
+		es.storeTranslations(store);
+		eu.storeTranslations(store);
+		
+		es.renameTranslation("a", "b");
+		eu.storeTranslation("a.a.a", "aaa-eu");
+		assertEquals(es.getTranslations(), ImmutableSortedMap.of("b.a", "aa-es", "b.b", "ab-es"));
+		assertEquals(eu.getTranslations(), ImmutableSortedMap.of("a.a.a", "aaa-eu"));
+		assertEquals(store.getKeyCount(), 3);
+		
+		eu.releaseTranslations();
+		eu.storeTranslation("c", "c-eu");
+		assertEquals(eu.getTranslations(), ImmutableSortedMap.of("a.a.a", "aaa-eu", "c", "c-eu"));
+		assertEquals(store.getKeyCount(), 2);
+	}
+}
@@ -0,0 +1,62 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class DirectoryWatcherTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void watchTest() throws Exception {
+		Path dir = folder.getRoot().toPath();
+		Path c = Files.write(dir.resolve("c.json"), "{}".getBytes());
+		BlockingQueue<Set<Path>> changes = new LinkedBlockingQueue<>();
+		DirectoryWatcher watcher = new DirectoryWatcher(dir, 200, changes::add);
+		try {
+			Path a = dir.resolve("a.json");
+			Path b = dir.resolve("b.json");
+			Files.write(a, "{}".getBytes());
+			Files.write(b, "{}".getBytes());
+			Files.write(a, "{\"a\":\"a\"}".getBytes());
+			assertEquals(awaitChanges(changes, ImmutableSet.of(a, b)), true);
+			
+			// The file has not been changed since the watcher was started, so only its deletion reports it
+			Files.delete(c);
+			assertEquals(awaitChanges(changes, ImmutableSet.of(c)), true);
+		} finally {
+			watcher.close();
+		}
+	}
+	
+	/**
+	 * Waits until all given paths have been reported as changed, however the watcher has grouped them.
+	 * The bound is generous, as file systems may take a while to report their events.
+	 */
+	private static boolean awaitChanges(BlockingQueue<Set<Path>> changes, Set<Path> expected) throws Exception {
+		Set<Path> changed = Sets.newHashSet();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (!changed.containsAll(expected)) {
+			Set<Path> paths = changes.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (paths == null) {
+				return false;
+			}
+			changed.addAll(paths);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,111 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.ejie.uda.jsonI18nEditor.util.EditJournal.Operation;
+import com.ejie.uda.jsonI18nEditor.util.EditJournal.Record;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class EditJournalTest {
+	private Path path;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Before
+	public void setup() throws Exception {
+		path = EditJournal.getPath(folder.getRoot().toPath().resolve("journal"), folder.getRoot().toPath(), "x21aApp");
+	}
+	
+	@Test
+	public void appendTest() throws Exception {
+		try (EditJournal journal = EditJournal.open(path)) {
+			journal.append(new Record(Operation.STORE, "x21aApp.i18n_es.json", "a.b", "\u00E1rbol"));
+			journal.append(new Record(Operation.RENAME, "", "a.b", "a.c"));
+		}
+		try (EditJournal journal = EditJournal.open(path)) {
+			journal.append(new Record(Operation.REMOVE, "", "a.c", ""));
+		}
+		List<Record> records = EditJournal.read(path);
+		assertEquals(records.size(), 3);
+		assertEquals(records.get(0).getValue(), "\u00E1rbol");
+		assertEquals(records.get(1).getOperation(), Operation.RENAME);
+		assertEquals(records.get(2).getKey(), "a.c");
+	}
+	
+	@Test
+	public void tornRecordTest() throws Exception {
+		try (EditJournal journal = EditJournal.open(path)) {
+			journal.append(new Record(Operation.STORE, "", "a", "1"));
+			journal.append(new Record(Operation.STORE, "", "b", "2"));
+		}
+		// Cut off the last record, as if the editor was killed while writing it
+		long size = Files.size(path);
+		Files.newByteChannel(path, StandardOpenOption.WRITE).truncate(size - 3).close();
+		assertEquals(EditJournal.read(path).size(), 1);
+		
+		try (EditJournal journal = EditJournal.open(path)) {
+			journal.append(new Record(Operation.STORE, "", "c", "3"));
+		}
+		assertEquals(keys(EditJournal.read(path)), Lists.newArrayList("a", "c"));
+	}
+	
+	@Test
+	public void compactTest() throws Exception {
+		try (EditJournal journal = EditJournal.open(path)) {
+			journal.append(new Record(Operation.STORE, "", "a", "1"));
+			long position = journal.position();
+			journal.append(new Record(Operation.STORE, "", "b", "2"));
+			journal.compact(position, Lists.newArrayList(new Record(Operation.BASE, "x21aApp.i18n_es.json", "hash", "")));
+			journal.append(new Record(Operation.STORE, "", "c", "3"));
+		}
+		List<Record> records = EditJournal.read(path);
+		assertEquals(records.get(0).getOperation(), Operation.BASE);
+		assertEquals(keys(records), Lists.newArrayList("hash", "b", "c"));
+		
+		EditJournal journal = EditJournal.open(path);
+		journal.delete();
+		assertFalse(Files.exists(path));
+		assertEquals(EditJournal.read(path).size(), 0);
+	}
+	
+	@Test
+	public void applyTest() throws Exception {
+		Resource es = new Resource(ResourceType.JSON, folder.getRoot().toPath().resolve("x21aApp.i18n_es.json"), new Locale("es"));
+		Resource eu = new Resource(ResourceType.JSON, folder.getRoot().toPath().resolve("x21aApp.i18n_eu.json"), new Locale("eu"));
+		List<Record> records = Lists.newArrayList(
+				new Record(Operation.STORE, "x21aApp.i18n_es.json", "a.b", "es"),
+				new Record(Operation.STORE, "x21aApp.i18n_eu.json", "a.b", "eu"),
+				new Record(Operation.DUPLICATE, "", "a.b", "a.c"),
+				new Record(Operation.RENAME, "", "a.b", "a.d"),
+				new Record(Operation.REMOVE, "x21aApp.i18n_eu.json", "a.c", ""));
+		records.forEach(record -> {
+			record.applyTo(es);
+			record.applyTo(eu);
+		});
+		assertEquals(es.getTranslations().keySet(), Sets.newHashSet("a.c", "a.d"));
+		assertEquals(es.getTranslation("a.d"), "es");
+		assertEquals(eu.getTranslations().keySet(), Sets.newHashSet("a.d"));
+		assertEquals(eu.getTranslation("a.d"), "eu");
+	}
+	
+	private static List<String> keys(List<Record> records) {
+		return records.stream().map(Record::getKey).collect(Collectors.toList());
+	}
+}
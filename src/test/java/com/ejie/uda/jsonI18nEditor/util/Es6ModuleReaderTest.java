@@ -0,0 +1,54 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.google.common.io.CharStreams;
+import com.google.gson.stream.MalformedJsonException;
+
+public class Es6ModuleReaderTest {
+	
+	@Test
+	public void readTest() throws Exception {
+		assertEquals(translate("export default {\"a\":\"b\"};"), "{\"a\":\"b\"}");
+		assertEquals(translate("\uFEFF// header\nexport /* x */ default {\n\ta: 'b', // comment\n\t'c': { d: `e\n}; f`, },\n\t1: [1.5e-3, -2, true, null,],\n};\n"),
+				"{\"a\":\"b\",\"c\":{\"d\":\"e\\u000a}; f\"},\"1\":[1.5e-3,-2,true,null]}");
+		assertEquals(translate("module.exports = { a: 'it\\'s \"b\"' }"), "{\"a\":\"it's \\\"b\\\"\"}");
+	}
+	
+	@Test
+	public void escapeTest() throws Exception {
+		assertEquals(translate("export default { a: '\\x41\\u{1F600}\\u00e1\\v\\n\\q', b: 'c\\\nd' };"),
+				"{\"a\":\"\\u0041\\ud83d\\ude00\\u00e1\\u000b\\nq\",\"b\":\"cd\"}");
+	}
+	
+	@Test(expected = MalformedJsonException.class)
+	public void substitutionTest() throws Exception {
+		translate("export default { a: `${b}` };");
+	}
+	
+	@Test(expected = MalformedJsonException.class)
+	public void expressionTest() throws Exception {
+		translate("export default { a: b };");
+	}
+	
+	@Test(expected = MalformedJsonException.class)
+	public void trailingContentTest() throws Exception {
+		translate("export default { a: 'b' }; export const c = 1;");
+	}
+	
+	@Test(expected = MalformedJsonException.class)
+	public void exportTest() throws Exception {
+		translate("const a = { a: 'b' };");
+	}
+	
+	private static String translate(String module) throws IOException {
+		try (Es6ModuleReader reader = new Es6ModuleReader(new StringReader(module))) {
+			return CharStreams.toString(reader);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class KeyPathBuilderTest {
+	
+	@Test
+	public void pushTest() {
+		KeyPathBuilder key = new KeyPathBuilder();
+		key.push("a");
+		assertEquals(key.toString(), TranslationKeys.create("a"));
+		key.push("");
+		assertEquals(key.toString(), TranslationKeys.create("a", ""));
+		key.push("b");
+		assertEquals(key.toString(), TranslationKeys.create("a", "", "b"));
+		key.pop();
+		key.pop();
+		key.pushIndex(12);
+		assertEquals(key.toString(), "a.[12]");
+		key.push("c");
+		assertEquals(key.toString(), "a.[12].c");
+		key.pop();
+		key.pop();
+		key.pop();
+		assertEquals(key.toString(), "");
+		assertEquals(key.depth(), 0);
+	}
+	
+	@Test
+	public void pushIndexTest() {
+		KeyPathBuilder key = new KeyPathBuilder();
+		assertEquals(key.nextIndexOffset(), 6);
+		key.pushIndex(0);
+		assertEquals(key.toString(), "null.[0]");
+		key.pop();
+		key.push("");
+		key.pushIndex(7);
+		assertEquals(key.toString(), ".[7]");
+		key.pop();
+		key.pop();
+		
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			String name = "part" + i;
+			key.push(name);
+			expected.append(i == 0 ? "" : ".").append(name);
+		}
+		assertEquals(key.toString(), expected.toString());
+	}
+	
+	@Test
+	public void padIndexTest() {
+		KeyPathBuilder key = new KeyPathBuilder();
+		key.push("a");
+		int offset = key.nextIndexOffset();
+		key.pushIndex(3);
+		key.push("b");
+		String unpadded = key.toString();
+		assertEquals(KeyPathBuilder.padIndex(unpadded, offset, 3, 3), "a.[003].b");
+		assertEquals(KeyPathBuilder.padIndex(unpadded, offset, 3, 1), unpadded);
+	}
+}
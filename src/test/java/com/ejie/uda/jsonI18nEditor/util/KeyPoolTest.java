@@ -0,0 +1,56 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+public class KeyPoolTest {
+	
+	@Test
+	public void internTest() {
+		KeyPool pool = new KeyPool();
+		String key = pool.intern(new String("a.b"));
+		assertSame(pool.intern(new String("a.b")), key);
+		assertSame(pool.intern("xa.by".toCharArray(), 1, 3), key);
+		assertEquals(pool.size(), 1);
+		
+		// The table grows without losing any keys
+		for (int i = 0; i < 10000; i++) {
+			pool.intern("key" + i);
+		}
+		assertEquals(pool.size(), 10001);
+		assertSame(pool.intern("a.b"), key);
+		assertSame(pool.intern(("key" + 5000).toCharArray(), 0, 7), pool.intern("key5000"));
+	}
+	
+	@Test
+	public void releaseTest() throws Exception {
+		KeyPool pool = new KeyPool();
+		String key = pool.intern(new String("a.b"));
+		WeakReference<String> released = new WeakReference<>(pool.intern(new String("c.d")));
+		assertEquals(pool.size(), 2);
+		
+		// A key which is no longer referred to is released together with the reference of the test
+		for (int i = 0; i < 100 && released.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assumeTrue(released.get() == null);
+		assertEquals(pool.size(), 1);
+		assertSame(pool.intern("a.b"), key);
+	}
+	
+	@Test
+	public void readTest() throws Exception {
+		KeyPathBuilder builder = new KeyPathBuilder();
+		builder.push("common");
+		builder.push("label");
+		KeyPool pool = new KeyPool();
+		String key = pool.intern("common.label");
+		assertSame(builder.toString(pool), key);
+	}
+}
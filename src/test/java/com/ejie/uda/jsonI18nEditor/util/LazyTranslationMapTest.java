@@ -0,0 +1,99 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+
+public class LazyTranslationMapTest {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private Path file;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Before
+	public void setup() throws Exception {
+		file = folder.getRoot().toPath().resolve("x21aApp.i18n_es.json");
+	}
+	
+	@Test
+	public void readTest() throws Exception {
+		write("{\"a\":{\"b\":\"\\u00e1\\\"\",\"c\":1.5,\"d\":true,\"e\":null},\"f\":[\"g\",{\"h\":\"\u00f1\u20ac\ud83d\ude00\"}],\"i\":\"\\\\n\"}");
+		LazyTranslationMap translations = new LazyTranslationMap(file);
+		Set<String> arrayKeys = Sets.newHashSet();
+		assertEquals(translations, Resources.readTranslations(ResourceType.JSON, file, arrayKeys));
+		assertEquals(translations.getArrayKeys(), arrayKeys);
+		assertEquals(translations.get("f.[1].h"), "\u00f1\u20ac\ud83d\ude00");
+		assertNull(translations.get("f"));
+	}
+	
+	@Test
+	public void modifiedTest() throws Exception {
+		write("{\"a\":\"1\",\"b\":\"2\",\"c\":\"3\"}");
+		LazyTranslationMap translations = new LazyTranslationMap(file);
+		assertEquals(translations.get("a"), "1");
+		translations.put("c", "4");
+		
+		// Values not loaded yet are read from their new offsets, stored values are kept
+		write("{\"b\":\"changed\",\"c\":\"5\",\"a\":\"1\"}");
+		assertEquals(translations.get("b"), "changed");
+		assertEquals(translations.get("c"), "4");
+		
+		// The listener is notified of the translations removed from the file
+		Set<String> removedKeys = Sets.newHashSet();
+		translations.setRemovalListener(removedKeys::addAll);
+		write("{\"c\":\"5\"}");
+		assertNull(translations.get("a"));
+		assertEquals(translations.size(), 1);
+		assertEquals(translations.get("c"), "4");
+		assertEquals(removedKeys, ImmutableSet.of("a", "b"));
+	}
+	
+	@Test
+	public void racyModifiedTest() throws Exception {
+		write("{\"a\":\"1\"}");
+		LazyTranslationMap translations = new LazyTranslationMap(file);
+		assertEquals(translations.get("a"), "1");
+		
+		// The file has been indexed right after it was written, so a change of its content alone is noticed
+		FileTime lastModified = Files.getLastModifiedTime(file);
+		Files.write(file, "{\"a\":\"2\"}".getBytes(UTF8));
+		Files.setLastModifiedTime(file, lastModified);
+		assertEquals(translations.get("a"), "2");
+	}
+	
+	@Test
+	public void translationKeysTest() throws Exception {
+		write("{\"a\":{\"b\":\"1\"},\"c\":\"2\"}");
+		Resource resource = Resources.readLazy(file);
+		
+		// Reading any value would fail once the file is gone
+		Files.delete(file);
+		assertEquals(resource.getTranslationKeys(), ImmutableSortedSet.of("a.b", "c"));
+	}
+	
+	private void write(String content) throws Exception {
+		FileTime lastModified = Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+		Files.write(file, content.getBytes(UTF8));
+		if (lastModified != null) {
+			// Make sure the modification is noticed on file systems with a coarse timestamp resolution
+			Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 1000));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.CharStreams;
+
+public class MappedFileReaderTest {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void readTest() throws Exception {
+		String content = "{\"a\":\"\u00e1\u00e9\u00ed\",\"b\":\"\u20ac \u4e2d\u6587 \ud83d\ude00\",\"c\":\"x\"}";
+		Path path = folder.getRoot().toPath().resolve("x21aApp.i18n_es.json");
+		Files.write(path, content.getBytes(UTF8));
+		
+		// Use windows of a few bytes, so multibyte characters get split by the window boundaries
+		for (int windowSize = 4; windowSize < 12; windowSize++) {
+			try (Reader reader = new MappedFileReader(path, UTF8, windowSize)) {
+				assertEquals(CharStreams.toString(reader), content);
+			}
+		}
+		try (Reader reader = new MappedFileReader(path, UTF8)) {
+			assertEquals(CharStreams.toString(reader), content);
+		}
+	}
+	
+	@Test
+	public void readEmptyTest() throws Exception {
+		Path path = folder.newFile().toPath();
+		try (Reader reader = new MappedFileReader(path, UTF8)) {
+			assertEquals(reader.read(), -1);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class PersistentSortedMapTest {
+	
+	@Test
+	public void persistentTest() {
+		PersistentSortedMap<String,String> empty = PersistentSortedMap.of();
+		PersistentSortedMap<String,String> map = empty.plus("b", "1").plus("a", "2").plus("c", "3");
+		PersistentSortedMap<String,String> changed = map.plus("b", "4").minus("a");
+		assertEquals(empty.isEmpty(), true);
+		assertEquals(map, ImmutableSortedMap.of("a", "2", "b", "1", "c", "3"));
+		assertEquals(changed, ImmutableSortedMap.of("b", "4", "c", "3"));
+		assertEquals(map.subMap("b", "c"), ImmutableSortedMap.of("b", "1"));
+		assertEquals(map.tailMap("b").headMap("c").size(), 1);
+		assertEquals(map.firstKey(), "a");
+		assertEquals(map.headMap("c").lastKey(), "b");
+		assertEquals(Lists.newArrayList(map.keySet().tailSet("b")), Lists.newArrayList("b", "c"));
+	}
+	
+	@Test
+	public void versionedTest() {
+		Random random = new Random(42);
+		VersionedSortedMap<String,String> map = new VersionedSortedMap<>();
+		TreeMap<String,String> expected = Maps.newTreeMap();
+		List<SortedMap<String,String>> versions = Lists.newArrayList();
+		List<SortedMap<String,String>> expectedVersions = Lists.newArrayList();
+		for (int i = 0; i < 20000; i++) {
+			String key = Integer.toString(random.nextInt(500), 36);
+			switch (random.nextInt(4)) {
+			case 0:
+				assertEquals(map.remove(key), expected.remove(key));
+				break;
+			case 1:
+				String to = key + "~";
+				map.subMap(key, to).clear();
+				expected.subMap(key, to).clear();
+				break;
+			default:
+				assertEquals(map.put(key, Integer.toString(i)), expected.put(key, Integer.toString(i)));
+			}
+			if (i % 500 == 0) {
+				versions.add(map.snapshot());
+				expectedVersions.add(ImmutableSortedMap.copyOf(expected));
+			}
+		}
+		assertEquals(map, expected);
+		assertEquals(map.size(), expected.size());
+		assertEquals(map.subMap("1", "5").size(), expected.subMap("1", "5").size());
+		assertEquals(map.tailMap("c").firstKey(), expected.tailMap("c").firstKey());
+		assertEquals(map.headMap("c").lastKey(), expected.headMap("c").lastKey());
+		assertEquals(new VersionedSortedMap<>(expected), expected);
+		// Versions are not affected by the changes made after they have been taken
+		assertEquals(versions, expectedVersions);
+	}
+}
@@ -0,0 +1,86 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+
+public class ResourceCacheTest {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final AtomicInteger loads = new AtomicInteger();
+	private Path cacheDir;
+	private Path file;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Before
+	public void setup() throws Exception {
+		cacheDir = folder.newFolder().toPath();
+		file = folder.getRoot().toPath().resolve("x21aApp.i18n_es.json");
+		Files.write(file, "a".getBytes(UTF8));
+	}
+	
+	@Test
+	public void readTest() throws Exception {
+		ResourceCache cache = new ResourceCache(cacheDir, 1024 * 1024);
+		
+		SortedMap<String,String> translations = cache.read(file, Sets.newHashSet(), this::load);
+		assertEquals(loads.get(), 1);
+		Set<String> arrayKeys = Sets.newHashSet();
+		assertEquals(cache.read(file, arrayKeys, this::load), translations);
+		assertEquals(arrayKeys, Sets.newHashSet("a.d"));
+		assertEquals(loads.get(), 1);
+		
+		// A changed file invalidates the snapshot
+		Files.write(file, "ab".getBytes(UTF8));
+		assertEquals(cache.read(file, Sets.newHashSet(), this::load).get("a.b"), "ab");
+		assertEquals(loads.get(), 2);
+		assertEquals(cache.read(file, Sets.newHashSet(), this::load).get("a.b"), "ab");
+		assertEquals(loads.get(), 2);
+		
+		// A given hash is used instead of hashing the file again
+		assertEquals(cache.read(file, Resources.hash(file), Sets.newHashSet(), this::load).get("a.b"), "ab");
+		assertEquals(loads.get(), 2);
+		cache.read(file, HashCode.fromInt(0), Sets.newHashSet(), this::load);
+		assertEquals(loads.get(), 3);
+	}
+	
+	@Test
+	public void evictTest() throws Exception {
+		ResourceCache cache = new ResourceCache(cacheDir, 1);
+		cache.read(file, Sets.newHashSet(), this::load);
+		cache.read(file, Sets.newHashSet(), this::load);
+		assertEquals(loads.get(), 2);
+		try (Stream<Path> files = Files.list(cacheDir)) {
+			assertEquals(files.count(), 0);
+		}
+	}
+	
+	private SortedMap<String,String> load(Path path, Set<String> arrayKeys) throws IOException {
+		loads.incrementAndGet();
+		arrayKeys.add("a.d");
+		String content = new String(Files.readAllBytes(path), UTF8);
+		SortedMap<String,String> result = Maps.newTreeMap();
+		result.put("a.b", content);
+		result.put("a.b\u00e9.c", "\ud83d\ude00");
+		result.put("a.c", "");
+		result.put("a.d.[0]", "a0");
+		return result;
+	}
+}
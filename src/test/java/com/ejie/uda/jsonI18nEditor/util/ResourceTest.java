@@ -2,6 +2,7 @@ package com.ejie.uda.jsonI18nEditor.util;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.SortedMap;
 
@@ -9,8 +10,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.ejie.uda.jsonI18nEditor.Resource;
+import com.ejie.uda.jsonI18nEditor.ResourceEvent;
 import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class ResourceTest {
 	private Resource resource;
@@ -192,4 +197,184 @@ public class ResourceTest {
 		assertEquals(translations.get("b.b.a"), "bba");
 		assertEquals(translations.get("b.b.b"), "bbb");
 	}
+	
+	@Test
+	public void arrayKeysTest() {
+		SortedMap<String,String> translations = Maps.newTreeMap();
+		translations.put("a.[0].b", "a0b");
+		translations.put("a.[0].c.[0]", "a0c0");
+		translations.put("a.[1].b", "a1b");
+		resource = new Resource(ResourceType.JSON, null, new Locale("en"), translations, Sets.newHashSet("a", "a.[0].c"));
+		
+		resource.duplicateTranslation("a", "d");
+		assertEquals(resource.getArrayKeys(), Sets.newTreeSet(Lists.newArrayList("a", "a.[0].c", "d", "d.[0].c")));
+		
+		resource.renameTranslation("d.[0].c", "e");
+		assertEquals(resource.getArrayKeys(), Sets.newTreeSet(Lists.newArrayList("a", "a.[0].c", "d", "e")));
+		
+		// An array turns into an object when it gets a member which is no array element
+		resource.storeTranslation("a.b", "ab");
+		assertEquals(resource.getArrayKeys(), Sets.newTreeSet(Lists.newArrayList("a.[0].c", "d", "e")));
+		
+		resource.removeTranslation("a");
+		assertEquals(resource.getArrayKeys(), Sets.newTreeSet(Lists.newArrayList("d", "e")));
+	}
+	
+	@Test
+	public void replaceTranslationsTest() {
+		SortedMap<String,String> translations = Maps.newTreeMap();
+		translations.put("a.b", "changed");
+		translations.put("b", "b");
+		resource.storeTranslation("a.a", "edited");
+		resource.replaceTranslations(new Resource(ResourceType.JSON, null, new Locale("en"), translations));
+		
+		assertEquals(resource.getTranslations(), translations);
+	}
+	
+	@Test
+	public void mergeTranslationsTest() {
+		resource.storeTranslation("a.a", "edited");
+		resource.storeTranslation("c", "c");
+		
+		SortedMap<String,String> translations = Maps.newTreeMap();
+		translations.put("a.a", "aa");
+		translations.put("a.b", "changed");
+		translations.put("b", "b");
+		Resource changed = new Resource(ResourceType.JSON, null, new Locale("en"), translations);
+		assertEquals(resource.getConflictingKeys(changed).size(), 0);
+		
+		resource.mergeTranslations(changed);
+		assertEquals(resource.getTranslations().size(), 4);
+		assertEquals(resource.getTranslation("a.a"), "edited");
+		assertEquals(resource.getTranslation("a.b"), "changed");
+		assertEquals(resource.getTranslation("b"), "b");
+		assertEquals(resource.getTranslation("c"), "c");
+		
+		translations.put("a.a", "conflict");
+		assertEquals(resource.getConflictingKeys(changed), Sets.newTreeSet(Lists.newArrayList("a.a")));
+		
+		resource.clearChanges();
+		assertEquals(resource.hasChanges(), false);
+		assertEquals(resource.getConflictingKeys(changed).size(), 0);
+	}
+	
+	@Test
+	public void modifiedTest() {
+		assertEquals(resource.isModified(), false);
+		resource.storeTranslation("a.a", "edited");
+		assertEquals(resource.isModified(), true);
+		assertEquals(resource.isContentModified(), true);
+		
+		resource.clearChanges();
+		assertEquals(resource.isModified(), false);
+		
+		// Modifications which have been undone are detected by the hash of the saved translations
+		resource.storeTranslation("a.a", "edited again");
+		resource.storeTranslation("a.a", "edited");
+		assertEquals(resource.isModified(), true);
+		assertEquals(resource.isContentModified(), false);
+		assertEquals(resource.isModified(), true);
+		assertEquals(resource.hasChanges(), true);
+		
+		resource.clearChanges();
+		assertEquals(resource.isModified(), false);
+		assertEquals(resource.hasChanges(), false);
+	}
+	
+	@Test
+	public void batchChangesTest() {
+		List<ResourceEvent> events = Lists.newArrayList();
+		resource.addListener(events::add);
+		resource.duplicateTranslation("a", "c");
+		assertEquals(events.size(), 1);
+		
+		// Listeners are notified once the outermost batch is committed
+		resource.beginChanges();
+		resource.storeTranslation("d", "d");
+		resource.beginChanges();
+		resource.renameTranslation("c", "e");
+		resource.commitChanges();
+		assertEquals(events.size(), 1);
+		resource.commitChanges();
+		assertEquals(events.size(), 2);
+		
+		resource.beginChanges();
+		resource.commitChanges();
+		assertEquals(events.size(), 2);
+	}
+	
+	@Test
+	public void changeEventsTest() {
+		List<ResourceEvent> events = Lists.newArrayList();
+		resource.addListener(events::add);
+		resource.storeTranslation("a.a", "changed");
+		assertEquals(events.get(0).getType(), ResourceEvent.Type.STORE);
+		assertEquals(events.get(0).getKey(), "a.a");
+		assertEquals(events.get(0).getChanges().keySet(), ImmutableSet.of("a.a"));
+		assertEquals(events.get(0).getChanges().get("a.a").getNewValue(), "changed");
+		
+		// Child keys removed along with a change are part of it
+		resource.storeTranslation("a", "a");
+		assertEquals(events.get(1).getType(), ResourceEvent.Type.STORE);
+		assertEquals(events.get(1).getChanges().keySet(), ImmutableSet.of("a", "a.a", "a.b"));
+		assertEquals(events.get(1).getChanges().get("a").getOldValue(), null);
+		assertEquals(events.get(1).getChanges().get("a.a").getNewValue(), null);
+		
+		resource.renameTranslation("a", "c");
+		assertEquals(events.get(2).getType(), ResourceEvent.Type.RENAME);
+		assertEquals(events.get(2).getNewKey(), "c");
+		assertEquals(events.get(2).getChanges().keySet(), ImmutableSet.of("a", "c"));
+		
+		// The changes of a batch are coalesced, leaving out the changes which have been undone
+		resource.beginChanges();
+		resource.storeTranslation("d", "d");
+		resource.storeTranslation("c", "changed");
+		resource.storeTranslation("c", "a");
+		resource.removeTranslation("b");
+		resource.commitChanges();
+		assertEquals(events.size(), 4);
+		assertEquals(events.get(3).getType(), ResourceEvent.Type.BULK);
+		assertEquals(events.get(3).getKey(), null);
+		assertEquals(events.get(3).getChanges().keySet(), ImmutableSet.of("d"));
+	}
+	
+	@Test
+	public void replaceEventsTest() {
+		SortedMap<String,String> translations = new VersionedSortedMap<>();
+		translations.put("a", "a");
+		translations.put("b", "b");
+		Resource versioned = new Resource(ResourceType.JSON, null, new Locale("en"), translations);
+		List<ResourceEvent> events = Lists.newArrayList();
+		versioned.addListener(events::add);
+		
+		// Nothing is removed, so nothing has changed
+		versioned.removeTranslation("c");
+		assertEquals(events.size(), 0);
+		assertEquals(versioned.isModified(), false);
+		
+		SortedMap<String,String> changed = Maps.newTreeMap();
+		changed.put("a", "changed");
+		changed.put("c", "c");
+		versioned.replaceTranslations(new Resource(ResourceType.JSON, null, new Locale("en"), changed));
+		assertEquals(events.size(), 1);
+		assertEquals(events.get(0).getType(), ResourceEvent.Type.BULK);
+		assertEquals(events.get(0).getChanges().keySet(), ImmutableSet.of("a", "b", "c"));
+		assertEquals(events.get(0).getChanges().get("a").getOldValue(), "a");
+		assertEquals(events.get(0).getChanges().get("b").getNewValue(), null);
+		
+		// Unsaved changes are kept by a merge, so they are no change of the merge
+		versioned.storeTranslation("c", "edited");
+		changed.put("a", "a");
+		changed.put("c", "changed");
+		versioned.mergeTranslations(new Resource(ResourceType.JSON, null, new Locale("en"), changed));
+		assertEquals(events.size(), 3);
+		assertEquals(events.get(2).getChanges().keySet(), ImmutableSet.of("a"));
+		assertEquals(versioned.getTranslation("c"), "edited");
+		
+		// Translations which can not be compared cheaply are reported as reset
+		resource.addListener(events::add);
+		resource.replaceTranslations(versioned);
+		assertEquals(events.get(3).getType(), ResourceEvent.Type.RESET);
+		assertEquals(events.get(3).getChanges().isEmpty(), true);
+	}
 }
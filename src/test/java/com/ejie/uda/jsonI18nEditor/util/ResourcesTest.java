@@ -0,0 +1,164 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.ejie.uda.jsonI18nEditor.Resource.ResourceType;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
+
+public class ResourcesTest {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void readTest() throws Exception {
+		Path path = createFile("x21aApp.i18n_es.json", 
+				"{\"a\":{\"b\":\"ab\",\"c\":{\"d\":\"acd\"}},\"n\":null,\"num\":1.50,\"t\":true,\"s\":\"x\\u00e9\"}");
+		SortedMap<String,String> translations = Resources.read(path).getTranslations();
+		assertEquals(translations.size(), 6);
+		assertEquals(translations.get("a.b"), "ab");
+		assertEquals(translations.get("a.c.d"), "acd");
+		assertEquals(translations.get("n"), "");
+		assertEquals(translations.get("num"), "1.50");
+		assertEquals(translations.get("t"), "true");
+		assertEquals(translations.get("s"), "x\u00e9");
+	}
+	
+	@Test
+	public void readArrayTest() throws Exception {
+		StringBuilder content = new StringBuilder("{\"a\":[");
+		for (int i = 0; i < 11; i++) {
+			content.append(i == 0 ? "" : ",").append("\"").append(i).append("\"");
+		}
+		content.append("],\"b\":[{\"c\":\"b0c\",\"d\":[\"x\",\"y\"]},{\"c\":\"b1c\"}]}");
+		Path path = createFile("x21aApp.i18n_es.json", content.toString());
+		SortedMap<String,String> translations = Resources.read(path).getTranslations();
+		assertEquals(translations.size(), 15);
+		assertEquals(translations.get("a.[00]"), "0");
+		assertEquals(translations.get("a.[09]"), "9");
+		assertEquals(translations.get("a.[10]"), "10");
+		assertEquals(translations.get("b.[0].c"), "b0c");
+		assertEquals(translations.get("b.[0].d.[0]"), "x");
+		assertEquals(translations.get("b.[0].d.[1]"), "y");
+		assertEquals(translations.get("b.[1].c"), "b1c");
+	}
+	
+	@Test
+	public void writeTest() throws Exception {
+		Path path = createFile("x21aApp.i18n_es.json", "{\"b\":{\"c\":\"bc\",\"a\":\"ba\"},\"a\":[{\"c\":\"a0c\"}]}");
+		Resource resource = Resources.read(path);
+		String separator = System.lineSeparator();
+		
+		Resources.write(resource, false);
+		assertEquals(readFile(path), "{\"a\":[{\"c\":\"a0c\"}],\"b\":{\"a\":\"ba\",\"c\":\"bc\"}}" + separator);
+		
+		Resources.write(resource, true);
+		assertEquals(readFile(path), "{\n  \"a\": [\n    {\n      \"c\": \"a0c\"\n    }\n  ],\n"
+				+ "  \"b\": {\n    \"a\": \"ba\",\n    \"c\": \"bc\"\n  }\n}" + separator);
+	}
+	
+	@Test
+	public void writeArrayTest() throws Exception {
+		StringBuilder content = new StringBuilder("{\"a\":[");
+		for (int i = 0; i < 11; i++) {
+			content.append(i == 0 ? "" : ",").append("{\"b\":[\"").append(i).append("\"]}");
+		}
+		content.append("],\"c\":[[\"c00\",\"c01\"],\"c1\"],\"d\":{\"[0]\":\"d0\",\"[1]\":{\"e\":\"d1e\"}}}");
+		Path path = createFile("x21aApp.i18n_es.json", content.toString());
+		Resource resource = Resources.read(path);
+		assertEquals(resource.getArrayKeys().size(), 14);
+		assertTrue(resource.getArrayKeys().contains("a.[07].b"));
+		
+		// Arrays, arrays of objects and objects with array like member names are written as they were read
+		Resources.write(resource, false);
+		assertEquals(readFile(path), content + System.lineSeparator());
+	}
+	
+	@Test
+	public void writeNewArrayTest() throws Exception {
+		Resource resource = Resources.create(ResourceType.JSON, folder.getRoot().toPath(), "x21aApp", "es");
+		resource.storeTranslation("a.[0].b", "a0b");
+		resource.storeTranslation("a.[1].b", "a1b");
+		resource.storeTranslation("c.[0]", "c0");
+		resource.storeTranslation("c.d", "cd");
+		
+		// Arrays stored without being read are written as arrays, unless they have other members as well
+		Resources.write(resource, false);
+		assertEquals(readFile(resource.getPath()), 
+				"{\"a\":[{\"b\":\"a0b\"},{\"b\":\"a1b\"}],\"c\":{\"[0]\":\"c0\",\"d\":\"cd\"}}" + System.lineSeparator());
+	}
+	
+	@Test
+	public void writeSnapshotTest() throws Exception {
+		Path path = createFile("x21aApp.i18n_es.json", "{\"a\":\"a\"}");
+		Resource resource = Resources.read(path);
+		resource.storeTranslation("b", "b");
+		Resource.Snapshot snapshot = resource.createSnapshot();
+		resource.storeTranslation("c", "c");
+		
+		HashCode hash = Resources.write(resource.getType(), path, snapshot.getTranslations(), snapshot.getArrayKeys(), false);
+		resource.markSaved(snapshot);
+		assertEquals(readFile(path), "{\"a\":\"a\",\"b\":\"b\"}" + System.lineSeparator());
+		assertEquals(hash, Resources.hash(path));
+		try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+			assertEquals(files.count(), 1);
+		}
+		
+		// Modifications made after the snapshot was taken are still pending
+		assertEquals(resource.isModified(), true);
+		assertEquals(resource.createSnapshot().isContentModified(), true);
+	}
+	
+	@Test
+	public void writeOutputFormatsTest() throws Exception {
+		Path path = createFile("x21aApp.i18n_es.json", "{\"a\":\"a\"}");
+		Resource resource = Resources.read(path);
+		HashCode hash = Resources.hash(path);
+		resource.storeTranslation("b", "b");
+		
+		List<OutputFormat> formats = Lists.newArrayList(OutputFormat.parse("min.json"), 
+				OutputFormat.parse("js"), OutputFormat.parse("min.json.gz"));
+		HashCode newHash = Resources.write(resource.createSnapshot(), hash, false, formats);
+		// The resource file is patched, the other formats are written in full
+		String content = "{\"a\":\"a\",\"b\":\"b\"}" + System.lineSeparator();
+		assertEquals(readFile(path), "{\"a\":\"a\",\"b\":\"b\"}");
+		assertEquals(newHash, Resources.hash(path));
+		assertEquals(readFile(folder.getRoot().toPath().resolve("x21aApp.i18n_es.min.json")), content);
+		assertEquals(readFile(folder.getRoot().toPath().resolve("x21aApp.i18n_es.js")), 
+				"export default {\n  \"a\": \"a\",\n  \"b\": \"b\"\n};" + System.lineSeparator());
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(folder.getRoot().toPath().resolve("x21aApp.i18n_es.min.json.gz")))) {
+			assertEquals(new String(ByteStreams.toByteArray(in), UTF8), content);
+		}
+		try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+			assertEquals(files.count(), 4);
+		}
+	}
+	
+	private Path createFile(String name, String content) throws Exception {
+		Path path = folder.getRoot().toPath().resolve(name);
+		Files.write(path, content.getBytes(UTF8));
+		return path;
+	}
+	
+	private String readFile(Path path) throws Exception {
+		return new String(Files.readAllBytes(path), UTF8);
+	}
+}
@@ -0,0 +1,55 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+
+public class SavePipelineTest {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void saveTest() throws Exception {
+		List<Path> paths = Lists.newArrayList();
+		List<Future<HashCode>> futures = Lists.newArrayList();
+		// The limit is exceeded by every single file, so the saves have to wait for each other
+		try (SavePipeline pipeline = new SavePipeline(4, 1)) {
+			for (int i = 0; i < 20; i++) {
+				Path path = folder.getRoot().toPath().resolve("x21aApp.i18n_l" + (char) ('a' + i) + ".json");
+				Files.write(path, "{\"a\":\"a\"}".getBytes(UTF8));
+				Resource resource = Resources.read(path);
+				resource.storeTranslation("b", "b" + i);
+				paths.add(path);
+				futures.add(pipeline.submit(resource.createSnapshot(), Resources.hash(path), false, 
+						ImmutableList.of(OutputFormat.parse("min.json.gz"))));
+			}
+			for (int i = 0; i < 20; i++) {
+				assertEquals(futures.get(i).get(), Resources.hash(paths.get(i)));
+			}
+			assertEquals(pipeline.getBytesInFlight(), 0);
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals(new String(Files.readAllBytes(paths.get(i)), UTF8), "{\"a\":\"a\",\"b\":\"b" + i + "\"}");
+		}
+		// No temporary files are left behind
+		try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+			assertEquals(files.count(), 40);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ejie.uda.jsonI18nEditor.Resource;
+import com.google.common.hash.HashCode;
+
+public class TranslationPatchWriterTest {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void storeTest() throws Exception {
+		Path path = createFile("{\n    \"b\" : \"b\",\n    \"a\" : {\n        \"x\" : \"ax\",\n        \"y\" : \"ay\"\n    }\n}\n");
+		Resource resource = Resources.read(path);
+		HashCode hash = Resources.hash(path);
+		resource.storeTranslation("a.y", "new\nline");
+		resource.storeTranslation("a.z", "az");
+		resource.storeTranslation("c", "c");
+		
+		HashCode newHash = Resources.write(resource.createSnapshot(), hash, true);
+		// Untouched members keep their order and layout, new members are inserted in key order
+		assertEquals(readFile(path), "{\n    \"b\" : \"b\",\n    \"a\" : {\n        \"x\" : \"ax\",\n"
+				+ "        \"y\" : \"new\\nline\",\n        \"z\" : \"az\"\n    },\n    \"c\" : \"c\"\n}\n");
+		assertEquals(newHash, Resources.hash(path));
+	}
+	
+	@Test
+	public void removeTest() throws Exception {
+		Path path = createFile("{\"a\":{\"x\":\"ax\"},\"b\":[\"b0\",\"b1\"],\"c\":\"c\"}");
+		Resource resource = Resources.read(path);
+		HashCode hash = Resources.hash(path);
+		resource.removeTranslation("a.x");
+		resource.removeTranslation("c");
+		
+		Resources.write(resource.createSnapshot(), hash, false);
+		assertEquals(readFile(path), "{\"b\":[\"b0\",\"b1\"]}");
+	}
+	
+	@Test
+	public void changedFileTest() throws Exception {
+		Path path = createFile("{\"a\":\"a\"}");
+		Resource resource = Resources.read(path);
+		HashCode hash = Resources.hash(path);
+		resource.storeTranslation("b", "b");
+		Files.write(path, "{\"a\":\"changed\"}".getBytes(UTF8));
+		
+		// The file does not match the hash anymore, so it is not patched
+		Path out = folder.getRoot().toPath().resolve("out.json");
+		try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			Resource.Snapshot snapshot = resource.createSnapshot();
+			assertFalse(TranslationPatchWriter.write(path, hash, snapshot.getTranslations(), snapshot.getArrayKeys(),
+					snapshot.getChangedKeys(), false, channel));
+			assertEquals(channel.size(), 0);
+		}
+	}
+	
+	@Test
+	public void layoutMismatchTest() throws Exception {
+		Path path = createFile("{\"a\":\"a\"}");
+		Resource resource = Resources.read(path);
+		HashCode hash = Resources.hash(path);
+		resource.storeTranslation("b", "b");
+		
+		// A compact file is written in full when pretty printing is requested
+		Resources.write(resource.createSnapshot(), hash, true);
+		assertEquals(readFile(path), "{\n  \"a\": \"a\",\n  \"b\": \"b\"\n}" + System.lineSeparator());
+	}
+	
+	private Path createFile(String content) throws Exception {
+		Path path = folder.getRoot().toPath().resolve("x21aApp.i18n_es.json");
+		Files.write(path, content.getBytes(UTF8));
+		return path;
+	}
+	
+	private String readFile(Path path) throws Exception {
+		return new String(Files.readAllBytes(path), UTF8);
+	}
+}
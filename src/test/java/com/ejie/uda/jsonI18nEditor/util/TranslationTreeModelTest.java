@@ -0,0 +1,55 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ejie.uda.jsonI18nEditor.TranslationTreeModel;
+import com.ejie.uda.jsonI18nEditor.TranslationTreeNode;
+import com.google.common.collect.Lists;
+
+public class TranslationTreeModelTest {
+	private TranslationTreeModel model;
+	
+	@Before
+	public void setup() {
+		model = new TranslationTreeModel(Lists.newArrayList("a.a", "a.b.a", "b"));
+	}
+	
+	@Test
+	public void insertNodeByKeyTest() {
+		TranslationTreeNode node = model.getNodeByKey("a");
+		model.insertNodeByKey("a.b.b");
+		model.insertNodeByKey("a.0");
+		model.insertNodeByKey("c.a.a");
+		
+		assertEquals(model.getNodeByKey("a"), node);
+		assertEquals(childNames(node), Lists.newArrayList("0", "a", "b"));
+		assertEquals(childNames(model.getNodeByKey("a.b")), Lists.newArrayList("a", "b"));
+		assertNotNull(model.getNodeByKey("c.a.a"));
+	}
+	
+	@Test
+	public void removeNodeByKeyTest() {
+		model.removeNodeByKey("a");
+		assertNotNull(model.getNodeByKey("a.a"));
+		
+		model.removeNodeByKey("a.b.a");
+		assertNull(model.getNodeByKey("a.b"));
+		assertNotNull(model.getNodeByKey("a.a"));
+		
+		model.removeNodeByKey("a.a");
+		assertNull(model.getNodeByKey("a"));
+		assertEquals(childNames((TranslationTreeNode) model.getRoot()), Lists.newArrayList("b"));
+	}
+	
+	private List<String> childNames(TranslationTreeNode node) {
+		return node.getChildren().stream().map(TranslationTreeNode::getName).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,44 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.util.SortedMap;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Sets;
+import com.google.gson.stream.JsonWriter;
+
+public class TranslationWriterTest {
+	
+	@Test
+	public void writeTest() throws Exception {
+		assertEquals(write(ImmutableSortedMap.of()), "{}");
+		assertEquals(write(ImmutableSortedMap.of("a.b", "ab", "a.c.d", "acd", "b", "b\"")), 
+				"{\"a\":{\"b\":\"ab\",\"c\":{\"d\":\"acd\"}},\"b\":\"b\\\"\"}");
+		// The key 'a-b' is sorted between 'a' and its children
+		assertEquals(write(ImmutableSortedMap.of("a", "a", "a-b", "ab", "a.c", "ac")), 
+				"{\"a\":{\"c\":\"ac\"},\"a-b\":\"ab\"}");
+	}
+	
+	@Test
+	public void writeArrayTest() throws Exception {
+		assertEquals(write(ImmutableSortedMap.of("a.[0].b", "a0b", "a.[0].c", "a0c", "a.[1].b", "a1b", "d", "d"), "a"), 
+				"{\"a\":[{\"b\":\"a0b\",\"c\":\"a0c\"},{\"b\":\"a1b\"}],\"d\":\"d\"}");
+		assertEquals(write(ImmutableSortedMap.of("a.[0]", "a0", "a.[1].[0]", "a10", "a.[1].[1]", "a11"), "a", "a.[1]"), 
+				"{\"a\":[\"a0\",[\"a10\",\"a11\"]]}");
+		// Keys which only look like array elements are written as object members
+		assertEquals(write(ImmutableSortedMap.of("a.[0].b", "a0b", "a.[1]", "a1")), 
+				"{\"a\":{\"[0]\":{\"b\":\"a0b\"},\"[1]\":\"a1\"}}");
+	}
+	
+	private static String write(SortedMap<String,String> translations, String... arrayKeys) throws Exception {
+		StringWriter out = new StringWriter();
+		JsonWriter writer = new JsonWriter(out);
+		TranslationWriter.write(translations, Sets.newHashSet(arrayKeys), writer);
+		writer.flush();
+		return out.toString();
+	}
+}
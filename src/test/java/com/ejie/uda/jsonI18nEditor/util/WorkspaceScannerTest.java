@@ -0,0 +1,78 @@
+package com.ejie.uda.jsonI18nEditor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ejie.uda.jsonI18nEditor.Bundle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class WorkspaceScannerTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void scanTest() throws Exception {
+		Path root = folder.getRoot().toPath();
+		Path a = createFile(root, "x21aApp.i18n_es.json");
+		Path b = createFile(root, "x21aApp.i18n_eu.json");
+		Path c = createFile(root.resolve("sub/dir"), "x21bApp.i18n_es.json");
+		createFile(root, "x21aApp.properties");
+		createFile(root.resolve("node_modules"), "x21cApp.i18n_es.json");
+		createFile(root.resolve("sub/dir/too/deep"), "x21dApp.i18n_es.json");
+		
+		List<Bundle> bundles = new WorkspaceScanner(2).scan(root);
+		assertEquals(bundles.stream().map(Bundle::getName).collect(Collectors.toList()), ImmutableList.of("x21aApp", "x21bApp"));
+		assertEquals(bundles.get(0).getDir(), root);
+		assertEquals(bundles.get(0).getPaths(), ImmutableMap.of("es", a, "eu", b));
+		assertEquals(bundles.get(1).getPaths(), ImmutableMap.of("es", c));
+	}
+	
+	@Test
+	public void scanEs6Test() throws Exception {
+		Path root = folder.getRoot().toPath();
+		Path a = root.resolve("x21aApp.i18n_ES.json");
+		createFile(a, "translations.js");
+		Path b = createFile(root, "x21aApp.i18n_eu.json");
+		
+		// The names of ES6 resources may have uppercase letters
+		List<Bundle> bundles = new WorkspaceScanner(0).scan(root);
+		assertEquals(bundles.size(), 1);
+		assertEquals(bundles.get(0).getName(), "x21aApp");
+		assertEquals(bundles.get(0).getPaths(), ImmutableMap.of("ES", a, "eu", b));
+	}
+	
+	@Test
+	public void rescanTest() throws Exception {
+		Path root = folder.getRoot().toPath();
+		Path dir = root.resolve("dir");
+		createFile(dir, "x21aApp.i18n_es.json");
+		FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis() - 60000);
+		Files.setLastModifiedTime(dir, lastModified);
+		WorkspaceScanner scanner = new WorkspaceScanner(1);
+		assertEquals(scanner.scan(root).get(0).getPaths().size(), 1);
+		
+		// A directory which has not been modified is not listed again
+		createFile(dir, "x21aApp.i18n_eu.json");
+		Files.setLastModifiedTime(dir, lastModified);
+		assertEquals(scanner.scan(root).get(0).getPaths().size(), 1);
+		
+		Files.setLastModifiedTime(dir, FileTime.fromMillis(lastModified.toMillis() + 1000));
+		assertEquals(scanner.scan(root).get(0).getPaths().size(), 2);
+	}
+	
+	private static Path createFile(Path dir, String fileName) throws Exception {
+		Files.createDirectories(dir);
+		return Files.write(dir.resolve(fileName), "{}".getBytes());
+	}
+}